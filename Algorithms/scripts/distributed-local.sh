@@ -0,0 +1,59 @@
+#!/bin/sh
+# Runs a distributed island model on this machine, a DistributedCoordinator 
+# and a number of DistributedWorker processes connected over the loopback 
+# address, to try out or check the distributed mode without other machines.
+# The coordinator listens on any free port and prints the best Chromosome 
+# reported by the workers.  The script fails if any process fails or no 
+# result comes back.
+#
+# Usage: distributed-local.sh classpath chromosomeClass [workers] [generations]
+#
+# The classpath must hold the compiled Algorithms and Statistics classes and 
+# the Chromosome class, which needs a constructor with no parameters.  Each 
+# worker is seeded with its number so a run can be repeated.
+
+if [ $# -lt 2 ]; then
+    echo "Usage: $0 classpath chromosomeClass [workers] [generations]" >&2
+    exit 1
+fi
+CLASSPATH_ARG=$1
+CHROMOSOME=$2
+WORKERS=${3:-4}
+GENERATIONS=${4:-200}
+PACKAGE=uk.ac.leeds.mass.optimisation.genetic
+
+LOG=$(mktemp)
+trap 'rm -f "$LOG"' EXIT
+
+java -cp "$CLASSPATH_ARG" $PACKAGE.DistributedCoordinator 0 "$WORKERS" "$GENERATIONS" > "$LOG" 2>&1 &
+COORDINATOR=$!
+
+#wait for the coordinator to say which port it is listening on
+PORT=""
+while [ -z "$PORT" ]; do
+    if ! kill -0 $COORDINATOR 2>/dev/null; then
+        cat "$LOG" >&2
+        exit 1
+    fi
+    sleep 0.2
+    PORT=$(sed -n 's/^Listening on port \([0-9]*\)$/\1/p' "$LOG")
+done
+
+FAILED=0
+WORKER_PIDS=""
+i=0
+while [ $i -lt "$WORKERS" ]; do
+    java -cp "$CLASSPATH_ARG" $PACKAGE.DistributedWorker localhost "$PORT" "$CHROMOSOME" $i &
+    WORKER_PIDS="$WORKER_PIDS $!"
+    i=$((i + 1))
+done
+for pid in $WORKER_PIDS; do
+    wait $pid || FAILED=1
+done
+wait $COORDINATOR || FAILED=1
+
+grep -v '^Listening on port' "$LOG"
+if [ $FAILED -ne 0 ] || [ "$(tail -n 1 "$LOG")" = "null" ]; then
+    echo "Distributed run failed" >&2
+    exit 1
+fi
@@ -0,0 +1,31 @@
+#!/bin/bash
+# A stand-in for a model run by a ProcessEvaluatorPool, to try out or check 
+# the pool without a real simulator.  Each request is answered with its own 
+# genome as the output of the model, so the observed data given to the pool 
+# must hold as many values as the genome.
+#
+# Usage: process-worker-stub.sh [delay] [crash%] [hang%]
+#
+# The delay is the number of seconds to wait before each reply, which may be 
+# a fraction.  The worker exits with an error before a reply with a chance of 
+# crash% and stops replying altogether with a chance of hang%, which tests 
+# the restarts and the timeout of the pool.
+
+DELAY=${1:-0}
+CRASH=${2:-0}
+HANG=${3:-0}
+
+while read -r id values; do
+    if [ "$DELAY" != "0" ]; then
+        sleep "$DELAY"
+    fi
+    if [ $((RANDOM % 100)) -lt "$CRASH" ]; then
+        echo "Stub worker $$ crashed on $id" >&2
+        exit 1
+    fi
+    if [ $((RANDOM % 100)) -lt "$HANG" ]; then
+        echo "Stub worker $$ hung on $id" >&2
+        exec sleep 100000
+    fi
+    echo "$id $values"
+done
@@ -0,0 +1,346 @@
+/**
+ * The covariance matrix adaptation evolution strategy (CMA-ES) of Hansen 
+ * for calibrating real valued parameters held in a DoubleGenome.  Each 
+ * generation the offspring are sampled from a multivariate normal 
+ * distribution, and the mean, shape and size of the distribution are moved 
+ * towards the best of them.  The distribution learns how the parameters 
+ * interact, so on smooth problems this usually needs far fewer evaluations 
+ * than the GeneticAlgorithm, especially where parameters are correlated.
+ * 
+ * The candidate population size is the number of offspring sampled each 
+ * generation (lambda) and the breed population size the number of the best 
+ * of them the distribution is updated from (mu).  Both are set from the 
+ * number of parameters when created, to the defaults recommended by Hansen.  
+ * The parameters are scaled to between 0 and 1 by their bounds and offspring 
+ * outside the bounds are moved onto them.  The distribution starts at the 
+ * weighted mean of the best of the initial candidate population.
+ * 
+ * The breed population holds the best of the latest generation only, the 
+ * best found in the run is returned by getBestSolution.  The state of the 
+ * distribution cannot be saved in a checkpoint so checkpoints cannot be 
+ * written or a run resumed.
+ */
+package uk.ac.leeds.mass.optimisation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import uk.ac.leeds.mass.optimisation.genetic.Chromosome;
+import uk.ac.leeds.mass.optimisation.genetic.DoubleGenome;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class CMAES extends ContinuousOptimiser {
+    
+    private double initialStepSize = 0.3;
+    
+    //the bounds of each parameter, used to scale them to between 0 and 1
+    private double[] lower;
+    private double[] range;
+    private int n;
+    
+    //the search distribution
+    private double[] mean;
+    private double stepSize = 0.0;
+    private double[][] covariance;
+    //the covariance is B D D B', the columns of B are its eigenvectors 
+    //and D the square roots of its eigenvalues
+    private double[][] axes;
+    private double[] scales;
+    
+    //evolution paths of the step size and covariance
+    private double[] stepPath;
+    private double[] covariancePath;
+    private int updates = 0;
+    
+    //the recombination weights and learning rates, set for each run from mu
+    private double[] weights = new double[0];
+    private double effectiveMu;
+    private double cc;
+    private double cs;
+    private double c1;
+    private double cmu;
+    private double damping;
+    private double expectedLength;
+    
+    //working space for the updates
+    private double[] previousMean;
+    private double[] step;
+    private double[] work;
+    private double[][] decomposition;
+    private double[][] deviations = new double[0][];
+    
+    /**
+     * @param genome the DoubleGenome holding the parameters to calibrate
+     */
+    public CMAES(DoubleGenome genome){
+        super(genome);
+        setUp(genome);
+    }
+    
+    /**
+     * @param genome the DoubleGenome holding the parameters to calibrate
+     * @param seed the seed for the random number generator
+     */
+    public CMAES(DoubleGenome genome, long seed){
+        super(genome, seed);
+        setUp(genome);
+    }
+    
+    private void setUp(DoubleGenome genome){
+        n = genome.getLength();
+        lower = new double[n];
+        range = new double[n];
+        mean = new double[n];
+        covariance = new double[n][n];
+        axes = new double[n][n];
+        scales = new double[n];
+        stepPath = new double[n];
+        covariancePath = new double[n];
+        previousMean = new double[n];
+        step = new double[n];
+        work = new double[n];
+        decomposition = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            lower[i] = genome.getLowerBound(i);
+            range[i] = genome.getUpperBound(i) - lower[i];
+        }
+        int lambda = 4 + (int)Math.floor(3.0 * Math.log(Math.max(1, n)));
+        setCandidatePopulationSize(lambda);
+        setBreedPopulationSize(lambda / 2);
+    }
+    
+    /**
+     * Samples an offspring from the search distribution.
+     */
+    @Override
+    protected Chromosome createOffspring(int index, Random random) throws Exception {
+        double[] z = new double[n];
+        for (int j = 0; j < n; j++) {
+            z[j] = scales[j] * random.nextGaussian();
+        }
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            double sum = 0.0;
+            double[] row = axes[i];
+            for (int j = 0; j < n; j++) {
+                sum += row[j] * z[j];
+            }
+            double y = Math.max(0.0, Math.min(1.0, mean[i] + stepSize * sum));
+            values[i] = lower[i] + y * range[i];
+        }
+        return createChromosome(values);
+    }
+    
+    /**
+     * Selects the best offspring and updates the search distribution from 
+     * them.
+     */
+    @Override
+    protected boolean selectBreedPopulation(List<Chromosome> offspring, List<Chromosome> breedPopulation) {
+        boolean first = breedPopulation.isEmpty();
+        List<Chromosome> sorted = new ArrayList<Chromosome>(offspring);
+        sortBestFirst(sorted);
+        breedPopulation.clear();
+        breedPopulation.addAll(sorted.subList(0, Math.min(Math.max(1, getBreedPopulationSize()), sorted.size())));
+        
+        if ( first ){
+            initialise(breedPopulation.size());
+        }
+        System.arraycopy(mean, 0, previousMean, 0, n);
+        recombine(breedPopulation);
+        if ( !first ){
+            adapt(breedPopulation);
+        }
+        return true;
+    }
+    
+    /**
+     * Sets the weights and learning rates for mu parents and resets the 
+     * distribution to the unit sphere.
+     */
+    private void initialise(int mu){
+        weights = new double[mu];
+        double sum = 0.0;
+        for (int i = 0; i < mu; i++) {
+            weights[i] = Math.log(mu + 0.5) - Math.log(i + 1);
+            sum += weights[i];
+        }
+        double squares = 0.0;
+        for (int i = 0; i < mu; i++) {
+            weights[i] /= sum;
+            squares += weights[i] * weights[i];
+        }
+        effectiveMu = 1.0 / squares;
+        
+        cc = (4.0 + effectiveMu / n) / (n + 4.0 + 2.0 * effectiveMu / n);
+        cs = (effectiveMu + 2.0) / (n + effectiveMu + 5.0);
+        c1 = 2.0 / ((n + 1.3) * (n + 1.3) + effectiveMu);
+        cmu = Math.min(1.0 - c1, 2.0 * (effectiveMu - 2.0 + 1.0 / effectiveMu) / ((n + 2.0) * (n + 2.0) + effectiveMu));
+        damping = 1.0 + 2.0 * Math.max(0.0, Math.sqrt((effectiveMu - 1.0) / (n + 1.0)) - 1.0) + cs;
+        expectedLength = Math.sqrt(n) * (1.0 - 1.0 / (4.0 * n) + 1.0 / (21.0 * n * n));
+        
+        stepSize = initialStepSize;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                covariance[i][j] = i == j ? 1.0 : 0.0;
+                axes[i][j] = covariance[i][j];
+            }
+            scales[i] = 1.0;
+            stepPath[i] = 0.0;
+            covariancePath[i] = 0.0;
+        }
+        updates = 0;
+        if ( deviations.length != mu ){
+            deviations = new double[mu][n];
+        }
+    }
+    
+    //the weighted mean of the scaled values of the parents
+    private void recombine(List<Chromosome> parents){
+        for (int i = 0; i < n; i++) {
+            mean[i] = 0.0;
+        }
+        for (int k = 0; k < weights.length; k++) {
+            double[] x = ((DoubleGenome)parents.get(k)).getValues();
+            for (int i = 0; i < n; i++) {
+                mean[i] += weights[k] * scaled(x, i);
+            }
+        }
+    }
+    
+    private double scaled(double[] x, int i){
+        return range[i] == 0.0 ? 0.0 : (x[i] - lower[i]) / range[i];
+    }
+    
+    /**
+     * Updates the evolution paths, the covariance and the step size from 
+     * the move of the mean, then decomposes the covariance again.
+     */
+    private void adapt(List<Chromosome> parents){
+        updates++;
+        for (int i = 0; i < n; i++) {
+            step[i] = (mean[i] - previousMean[i]) / stepSize;
+        }
+        
+        //the step size path uses the step as if the covariance were the 
+        //identity, C^-1/2 step = B D^-1 B' step
+        for (int j = 0; j < n; j++) {
+            double sum = 0.0;
+            for (int i = 0; i < n; i++) {
+                sum += axes[i][j] * step[i];
+            }
+            work[j] = sum / scales[j];
+        }
+        double csFactor = Math.sqrt(cs * (2.0 - cs) * effectiveMu);
+        double pathLength = 0.0;
+        for (int i = 0; i < n; i++) {
+            double sum = 0.0;
+            for (int j = 0; j < n; j++) {
+                sum += axes[i][j] * work[j];
+            }
+            stepPath[i] = (1.0 - cs) * stepPath[i] + csFactor * sum;
+            pathLength += stepPath[i] * stepPath[i];
+        }
+        pathLength = Math.sqrt(pathLength);
+        
+        //stall the covariance path while the step size path is long, so the 
+        //covariance does not grow too fast when the step size is too small
+        boolean stalled = pathLength / Math.sqrt(1.0 - Math.pow(1.0 - cs, 2.0 * updates)) / expectedLength 
+                >= 1.4 + 2.0 / (n + 1.0);
+        double ccFactor = stalled ? 0.0 : Math.sqrt(cc * (2.0 - cc) * effectiveMu);
+        for (int i = 0; i < n; i++) {
+            covariancePath[i] = (1.0 - cc) * covariancePath[i] + ccFactor * step[i];
+        }
+        
+        //rank one update from the path and rank mu update from the parents
+        for (int k = 0; k < weights.length; k++) {
+            double[] x = ((DoubleGenome)parents.get(k)).getValues();
+            double[] d = deviations[k];
+            for (int i = 0; i < n; i++) {
+                d[i] = (scaled(x, i) - previousMean[i]) / stepSize;
+            }
+        }
+        double keep = 1.0 - c1 - cmu + (stalled ? c1 * cc * (2.0 - cc) : 0.0);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) {
+                double rankMu = 0.0;
+                for (int k = 0; k < weights.length; k++) {
+                    rankMu += weights[k] * deviations[k][i] * deviations[k][j];
+                }
+                double c = keep * covariance[i][j] + c1 * covariancePath[i] * covariancePath[j] + cmu * rankMu;
+                covariance[i][j] = c;
+                covariance[j][i] = c;
+            }
+        }
+        
+        //lengthen the step if the path is longer than expected for random 
+        //steps and shorten it if shorter, limited to a factor of e at once
+        stepSize *= Math.exp(Math.min(1.0, (cs / damping) * (pathLength / expectedLength - 1.0)));
+        
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(covariance[i], 0, decomposition[i], 0, n);
+        }
+        SymmetricEigen.decompose(decomposition, axes, scales);
+        for (int i = 0; i < n; i++) {
+            scales[i] = Math.sqrt(Math.max(scales[i], 1e-20));
+        }
+    }
+    
+    /**
+     * @return the current step size of the distribution, relative to the 
+     * range between the bounds
+     */
+    public double getStepSize() {
+        return stepSize;
+    }
+    
+    /**
+     * @return the step size the distribution starts with
+     */
+    public double getInitialStepSize() {
+        return initialStepSize;
+    }
+    
+    /**
+     * @param initialStepSize the step size the distribution starts with, 
+     * relative to the range between the bounds, greater than 0 and at most 1
+     */
+    public void setInitialStepSize(double initialStepSize) {
+        if ( !(initialStepSize > 0.0 && initialStepSize <= 1.0) ){
+            throw new IllegalArgumentException("Initial step size must be greater than 0 and at most 1: " + initialStepSize);
+        }
+        this.initialStepSize = initialStepSize;
+    }
+    
+    /**
+     * Checkpoints cannot be written as the state of the distribution would 
+     * not be saved.
+     * 
+     * @param file must be null
+     * @param interval the number of generations between checkpoints
+     */
+    @Override
+    public void setCheckpoint(Path file, int interval) {
+        if ( file != null ){
+            throw new UnsupportedOperationException("A CMA-ES run cannot write checkpoints");
+        }
+        super.setCheckpoint(null, interval);
+    }
+    
+    /**
+     * A CMA-ES run cannot be resumed from a checkpoint as the state of the 
+     * distribution is not saved.
+     * 
+     * @param file not used
+     */
+    @Override
+    public void loadCheckpoint(Path file) throws IOException {
+        throw new UnsupportedOperationException("A CMA-ES run cannot be resumed from a checkpoint");
+    }
+    
+}
@@ -0,0 +1,207 @@
+/**
+ * Base class for the optimisers of real valued parameters that share the 
+ * Chromosome and IGOF contract of the GeneticAlgorithm.  The parameters are 
+ * held in a DoubleGenome and the run, seed, listener, termination, 
+ * parallel evaluation, batch evaluation and fitness cache settings of the 
+ * GeneticAlgorithm all work in the same way, only the way the offspring are 
+ * created and the survivors chosen differs.
+ * 
+ * Several objectives, a surrogate, streaming, steady state mode, the 
+ * mutation rate, a selection strategy, pooling and a local search belong 
+ * to the genetic algorithm and setting them throws an 
+ * UnsupportedOperationException.  The best Chromosome found in a run is 
+ * returned by getBestSolution.
+ */
+package uk.ac.leeds.mass.optimisation;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import uk.ac.leeds.mass.optimisation.genetic.Chromosome;
+import uk.ac.leeds.mass.optimisation.genetic.DoubleGenome;
+import uk.ac.leeds.mass.optimisation.genetic.GeneticAlgorithm;
+import uk.ac.leeds.mass.optimisation.genetic.ILocalSearch;
+import uk.ac.leeds.mass.optimisation.genetic.ISelectionStrategy;
+import uk.ac.leeds.mass.optimisation.genetic.ISurrogate;
+import uk.ac.leeds.mass.statistics.gof.IGOF;
+
+/**
+ *
+ * @author kirkharland
+ */
+public abstract class ContinuousOptimiser extends GeneticAlgorithm {
+    
+    private final DoubleGenome genome;
+    
+    /**
+     * @param genome the DoubleGenome holding the parameters to calibrate
+     */
+    protected ContinuousOptimiser(DoubleGenome genome){
+        super(genome);
+        this.genome = genome;
+    }
+    
+    /**
+     * @param genome the DoubleGenome holding the parameters to calibrate
+     * @param seed the seed for the random number generator
+     */
+    protected ContinuousOptimiser(DoubleGenome genome, long seed){
+        super(genome, seed);
+        this.genome = genome;
+    }
+    
+    /**
+     * @return the DoubleGenome this optimiser was created with, which gives 
+     * the number of parameters and their bounds
+     */
+    protected DoubleGenome getGenome(){
+        return genome;
+    }
+    
+    /**
+     * Converts a fitness to a rank where smaller is always better.
+     * 
+     * @param fitness the fitness
+     * @return the rank, NaN is always worst
+     */
+    protected double rank(double fitness){
+        if ( Double.isNaN(fitness) ){return Double.POSITIVE_INFINITY;}
+        return getGof().calibrateToLessThan() ? fitness : -fitness;
+    }
+    
+    /**
+     * Sorts evaluated Chromosome objects best first, keeping those with the 
+     * same fitness in the order they were in.
+     * 
+     * @param population the population to sort
+     */
+    protected void sortBestFirst(List<? extends Chromosome> population){
+        Collections.sort(population, new Comparator<Chromosome>(){
+            @Override
+            public int compare(Chromosome a, Chromosome b) {
+                return Double.compare(rank(getFitness(a)), rank(getFitness(b)));
+            }
+        });
+    }
+    
+    /**
+     * Steady state mode cannot be used.
+     * 
+     * @param steadyState must be false
+     */
+    @Override
+    public void setSteadyState(boolean steadyState) {
+        if ( steadyState ){
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " has no steady state mode");
+        }
+        super.setSteadyState(false);
+    }
+    
+    /**
+     * Only a single objective can be used.
+     * 
+     * @param objectives a single objective
+     */
+    @Override
+    public void setObjectives(IGOF[] objectives) {
+        if ( objectives != null && objectives.length > 1 ){
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " calibrates to a single objective");
+        }
+        super.setObjectives(objectives);
+    }
+    
+    /**
+     * Streaming cannot be used as the survivors are not chosen by the 
+     * selection of the genetic algorithm.
+     * 
+     * @param streaming must be false
+     */
+    @Override
+    public void setStreaming(boolean streaming) {
+        if ( streaming ){
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot stream its generations");
+        }
+        super.setStreaming(false);
+    }
+    
+    /**
+     * The candidate population cannot be held off the heap as the offspring 
+     * are not bred by the genetic algorithm.
+     * 
+     * @param offHeap must be false
+     */
+    @Override
+    public void setOffHeap(boolean offHeap) {
+        if ( offHeap ){
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " holds its candidates on the heap");
+        }
+        super.setOffHeap(false);
+    }
+    
+    /**
+     * A surrogate cannot be used as every offspring must be evaluated.
+     * 
+     * @param surrogate must be null
+     */
+    @Override
+    public void setSurrogate(ISurrogate surrogate) {
+        if ( surrogate != null ){
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " evaluates every offspring");
+        }
+        super.setSurrogate(null);
+    }
+    
+    /**
+     * The mutation rate cannot be set as the offspring are not mutated by 
+     * the genetic algorithm.
+     * 
+     * @param mutationRate not used
+     */
+    @Override
+    public void setMutationRate(double mutationRate) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " has no mutation rate");
+    }
+    
+    /**
+     * Pooling cannot be used as the offspring are not bred by the genetic 
+     * algorithm.
+     * 
+     * @param pooling must be false
+     */
+    @Override
+    public void setPooling(boolean pooling) {
+        if ( pooling ){
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot pool its offspring");
+        }
+        super.setPooling(false);
+    }
+    
+    /**
+     * A selection strategy cannot be used as the parents are not chosen by 
+     * the genetic algorithm.
+     * 
+     * @param selectionStrategy must be null
+     */
+    @Override
+    public void setSelectionStrategy(ISelectionStrategy selectionStrategy) {
+        if ( selectionStrategy != null ){
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " chooses its own parents");
+        }
+        super.setSelectionStrategy(null);
+    }
+    
+    /**
+     * A local search cannot be used as it would change the survivors 
+     * without the optimiser knowing.
+     * 
+     * @param localSearch must be null
+     */
+    @Override
+    public void setLocalSearch(ILocalSearch localSearch) {
+        if ( localSearch != null ){
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot use a local search");
+        }
+        super.setLocalSearch(null);
+    }
+    
+}
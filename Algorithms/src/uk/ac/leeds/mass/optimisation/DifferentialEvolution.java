@@ -0,0 +1,179 @@
+/**
+ * Differential evolution (the DE/rand/1/bin scheme of Storn and Price) for 
+ * calibrating real valued parameters held in a DoubleGenome.  Each member 
+ * of the breed population is the target of one offspring, the trial, made 
+ * by adding the weighted difference of two random members to a third and 
+ * crossing the result with the target.  The trial replaces its target if 
+ * it is at least as good.  On smooth problems this usually needs far fewer 
+ * evaluations than the crossover of the GeneticAlgorithm.
+ * 
+ * The breed population size is the population of the differential 
+ * evolution and must be at least 4, it is set to ten times the number of 
+ * parameters when created as recommended by Storn and Price.  A smaller 
+ * population converges faster but may stall.  The candidate population 
+ * size is set to the same, if it is larger each member is the target of 
+ * several trials and the best of them is kept.  The initial population is 
+ * the best of a random candidate population.
+ */
+package uk.ac.leeds.mass.optimisation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import uk.ac.leeds.mass.optimisation.genetic.Chromosome;
+import uk.ac.leeds.mass.optimisation.genetic.DoubleGenome;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class DifferentialEvolution extends ContinuousOptimiser {
+    
+    private double weight = 0.5;
+    private double crossoverRate = 0.9;
+    
+    /**
+     * @param genome the DoubleGenome holding the parameters to calibrate
+     */
+    public DifferentialEvolution(DoubleGenome genome){
+        super(genome);
+        setBreedPopulationSize(Math.max(4, 10 * genome.getLength()));
+    }
+    
+    /**
+     * @param genome the DoubleGenome holding the parameters to calibrate
+     * @param seed the seed for the random number generator
+     */
+    public DifferentialEvolution(DoubleGenome genome, long seed){
+        super(genome, seed);
+        setBreedPopulationSize(Math.max(4, 10 * genome.getLength()));
+    }
+    
+    /**
+     * Creates the trial for the target at index modulo the population size.
+     */
+    @Override
+    protected Chromosome createOffspring(int index, Random random) throws Exception {
+        List<Chromosome> population = getBreedPopulation();
+        int size = population.size();
+        if ( size < 4 ){
+            throw new IllegalStateException("Differential evolution needs a population of at least 4, not " + size);
+        }
+        int target = index % size;
+        int r1 = pick(random, size, target, -1, -1);
+        int r2 = pick(random, size, target, r1, -1);
+        int r3 = pick(random, size, target, r1, r2);
+        
+        DoubleGenome genome = getGenome();
+        double[] x = ((DoubleGenome)population.get(target)).getValues();
+        double[] a = ((DoubleGenome)population.get(r1)).getValues();
+        double[] b = ((DoubleGenome)population.get(r2)).getValues();
+        double[] c = ((DoubleGenome)population.get(r3)).getValues();
+        double[] trial = new double[x.length];
+        
+        //at least one value always comes from the mutant
+        int forced = random.nextInt(x.length);
+        for (int j = 0; j < x.length; j++) {
+            if ( j == forced || random.nextDouble() < crossoverRate ){
+                double v = a[j] + weight * (b[j] - c[j]);
+                //a value out of bounds is put back between the bound and 
+                //the target so the population is not piled up on the bound
+                double lower = genome.getLowerBound(j);
+                double upper = genome.getUpperBound(j);
+                if ( v < lower ){
+                    v = lower + random.nextDouble() * (x[j] - lower);
+                }else if ( v > upper ){
+                    v = upper - random.nextDouble() * (upper - x[j]);
+                }
+                trial[j] = v;
+            }else{
+                trial[j] = x[j];
+            }
+        }
+        return createChromosome(trial);
+    }
+    
+    //a random index that is none of those given
+    private static int pick(Random random, int size, int a, int b, int c){
+        int i;
+        do{
+            i = random.nextInt(size);
+        }while ( i == a || i == b || i == c );
+        return i;
+    }
+    
+    /**
+     * Each trial replaces its target if it is at least as good, the first 
+     * population is the best of the initial candidates.
+     */
+    @Override
+    protected boolean selectBreedPopulation(List<Chromosome> offspring, List<Chromosome> breedPopulation) {
+        int size = breedPopulation.size();
+        if ( size == 0 ){
+            List<Chromosome> initial = new ArrayList<Chromosome>(offspring);
+            sortBestFirst(initial);
+            breedPopulation.addAll(initial.subList(0, Math.min(getBreedPopulationSize(), initial.size())));
+            return true;
+        }
+        
+        for (int i = 0; i < offspring.size(); i++) {
+            Chromosome trial = offspring.get(i);
+            int target = i % size;
+            if ( rank(getFitness(trial)) <= rank(getFitness(breedPopulation.get(target))) ){
+                breedPopulation.set(target, trial);
+            }
+        }
+        sortBestFirst(breedPopulation);
+        return true;
+    }
+    
+    /**
+     * Sets the size of the population, the candidate population size is 
+     * set to the same so that each member is the target of one trial.
+     * 
+     * @param breedPopulationSize the size of the population, at least 4
+     */
+    @Override
+    public void setBreedPopulationSize(int breedPopulationSize) {
+        super.setBreedPopulationSize(breedPopulationSize);
+        setCandidatePopulationSize(breedPopulationSize);
+    }
+    
+    /**
+     * @return the weight of the difference vector, F
+     */
+    public double getWeight() {
+        return weight;
+    }
+    
+    /**
+     * @param weight the weight of the difference vector, F, greater than 0 
+     * and at most 2, 0.5 suits most problems
+     */
+    public void setWeight(double weight) {
+        if ( !(weight > 0.0 && weight <= 2.0) ){
+            throw new IllegalArgumentException("Weight must be greater than 0 and at most 2: " + weight);
+        }
+        this.weight = weight;
+    }
+    
+    /**
+     * @return the probability of each value coming from the mutant, CR
+     */
+    public double getCrossoverRate() {
+        return crossoverRate;
+    }
+    
+    /**
+     * @param crossoverRate the probability of each value coming from the 
+     * mutant rather than the target, CR, from 0 to 1.  High values suit 
+     * parameters that interact, low values those that do not.
+     */
+    public void setCrossoverRate(double crossoverRate) {
+        if ( !(crossoverRate >= 0.0 && crossoverRate <= 1.0) ){
+            throw new IllegalArgumentException("Crossover rate must be from 0 to 1: " + crossoverRate);
+        }
+        this.crossoverRate = crossoverRate;
+    }
+    
+}
@@ -0,0 +1,89 @@
+/**
+ * Eigen decomposition of a small symmetric matrix by the cyclic Jacobi 
+ * method, used by the CMA-ES to find the axes of its search distribution.  
+ * Each rotation zeroes one off diagonal element, sweeps are made over the 
+ * whole matrix until what is left off the diagonal is negligible.  The 
+ * matrices are worked on in place so nothing is allocated.
+ */
+package uk.ac.leeds.mass.optimisation;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class SymmetricEigen {
+    
+    private static final int MAX_SWEEPS = 50;
+    
+    private SymmetricEigen(){}
+    
+    /**
+     * Finds the eigenvalues and eigenvectors of a symmetric matrix.
+     * 
+     * @param a the symmetric matrix, which is overwritten
+     * @param vectors filled with the eigenvectors as columns
+     * @param values filled with the eigenvalues, in the order of the columns
+     */
+    static void decompose(double[][] a, double[][] vectors, double[] values){
+        int n = values.length;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                vectors[i][j] = i == j ? 1.0 : 0.0;
+            }
+        }
+        
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            double off = 0.0;
+            double diagonal = 0.0;
+            for (int p = 0; p < n; p++) {
+                diagonal += a[p][p] * a[p][p];
+                for (int q = p + 1; q < n; q++) {
+                    off += a[p][q] * a[p][q];
+                }
+            }
+            if ( off <= 1e-30 * diagonal || off == 0.0 ){break;}
+            
+            for (int p = 0; p < n - 1; p++) {
+                for (int q = p + 1; q < n; q++) {
+                    if ( a[p][q] != 0.0 ){
+                        rotate(a, vectors, n, p, q);
+                    }
+                }
+            }
+        }
+        
+        for (int i = 0; i < n; i++) {
+            values[i] = a[i][i];
+        }
+    }
+    
+    //the rotation in the p, q plane that zeroes a[p][q]
+    private static void rotate(double[][] a, double[][] v, int n, int p, int q){
+        double apq = a[p][q];
+        double theta = (a[q][q] - a[p][p]) / (2.0 * apq);
+        double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1.0));
+        if ( theta == 0.0 ){t = 1.0;}
+        double c = 1.0 / Math.sqrt(t * t + 1.0);
+        double s = t * c;
+        
+        a[p][p] -= t * apq;
+        a[q][q] += t * apq;
+        a[p][q] = 0.0;
+        a[q][p] = 0.0;
+        for (int k = 0; k < n; k++) {
+            if ( k != p && k != q ){
+                double akp = a[k][p];
+                double akq = a[k][q];
+                a[k][p] = c * akp - s * akq;
+                a[p][k] = a[k][p];
+                a[k][q] = s * akp + c * akq;
+                a[q][k] = a[k][q];
+            }
+            double vkp = v[k][p];
+            double vkq = v[k][q];
+            v[k][p] = c * vkp - s * vkq;
+            v[k][q] = s * vkp + c * vkq;
+        }
+    }
+    
+}
@@ -0,0 +1,82 @@
+/**
+ * Walker's alias method for drawing indexes in proportion to a set of 
+ * weights.  Building the table takes O(n) time using Vose's method, after 
+ * which each draw takes a single random index and a single random double 
+ * whatever the number of weights.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.Random;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class AliasTable {
+    
+    private final double[] probability;
+    private final int[] alias;
+    
+    /**
+     * @param weights the weights, which must not be negative.  If they are 
+     * all 0 every index is equally likely.
+     */
+    AliasTable(double[] weights){
+        int n = weights.length;
+        probability = new double[n];
+        alias = new int[n];
+        
+        double total = 0.0;
+        for (int i = 0; i < n; i++) {
+            total += weights[i];
+        }
+        
+        //scale so the average weight is 1 and split into those below and 
+        //above the average
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        double[] scaled = new double[n];
+        for (int i = 0; i < n; i++) {
+            scaled[i] = total > 0 ? weights[i] * n / total : 1.0;
+            if ( scaled[i] < 1.0 ){
+                small[smallCount++] = i;
+            }else{
+                large[largeCount++] = i;
+            }
+        }
+        
+        //pair each small weight with a large one to fill its column
+        while ( smallCount > 0 && largeCount > 0 ){
+            int s = small[--smallCount];
+            int l = large[--largeCount];
+            probability[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+            if ( scaled[l] < 1.0 ){
+                small[smallCount++] = l;
+            }else{
+                large[largeCount++] = l;
+            }
+        }
+        
+        //anything left over is only short of 1 through rounding
+        while ( largeCount > 0 ){
+            probability[large[--largeCount]] = 1.0;
+        }
+        while ( smallCount > 0 ){
+            probability[small[--smallCount]] = 1.0;
+        }
+    }
+    
+    /**
+     * @param random the random number generator to use
+     * @return an index drawn in proportion to the weights
+     */
+    int draw(Random random){
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+    
+}
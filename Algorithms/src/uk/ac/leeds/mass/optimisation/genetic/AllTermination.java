@@ -0,0 +1,52 @@
+/**
+ * Combines several termination conditions so that the run only stops once 
+ * all of them are satisfied at the same time, for example a perfect fit 
+ * AND at least a minimum number of evaluations.  Conditions added directly 
+ * to the GeneticAlgorithm stop the run when any one of them is satisfied.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class AllTermination implements ITerminationCondition{
+    
+    private final ITerminationCondition[] conditions;
+    
+    /**
+     * @param conditions the conditions that must all be satisfied
+     */
+    public AllTermination(ITerminationCondition... conditions){
+        this.conditions = conditions.clone();
+    }
+
+    @Override
+    public void reset() {
+        for (ITerminationCondition condition : conditions) {
+            condition.reset();
+        }
+    }
+
+    @Override
+    public boolean isSatisfied(GeneticAlgorithm ga, GenerationStatistics statistics) {
+        //every condition is tested so that those tracking earlier 
+        //generations see all of them
+        boolean satisfied = true;
+        for (ITerminationCondition condition : conditions) {
+            satisfied &= condition.isSatisfied(ga, statistics);
+        }
+        return satisfied;
+    }
+
+    @Override
+    public String getDescription() {
+        StringBuilder s = new StringBuilder();
+        for (ITerminationCondition condition : conditions) {
+            if ( s.length() > 0 ){s.append(" and ");}
+            s.append(condition.getDescription());
+        }
+        return s.toString();
+    }
+    
+}
@@ -0,0 +1,337 @@
+/**
+ * Runs the generations of a GeneticAlgorithm of DoubleGenome objects with 
+ * the candidate population held in a PopulationArena rather than as 
+ * Chromosome objects.  The offspring are bred, mutated and evaluated 
+ * straight into their records and the new breed population is selected 
+ * from the records, so only the breed population is ever held as Chromosome 
+ * objects.  This lets a run screen millions of candidates a generation on 
+ * an ordinary heap.
+ * 
+ * Each thread has a DoubleGenome used as a view of the record it is working 
+ * on: the values are copied into it to be populated, mutated or evaluated, 
+ * so any overrides of populateGenes, mutate and calculateFitness in the sub 
+ * class are still used.  With the random number stream of each offspring 
+ * and the ties in the selection broken by position in the same way, the 
+ * breed population is exactly the same as when the candidates are held as 
+ * Chromosome objects.  Migrants added to the candidate population by an 
+ * IslandModel or DistributedWorker are copied into an arena of their own 
+ * and selected from after the offspring.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class ArenaGeneration {
+    
+    private final GeneticAlgorithm ga;
+    private final DoubleGenome template;
+    private final PopulationArena offspring;
+    //the breed population the offspring were bred from
+    private PopulationArena elite;
+    private List<Chromosome> eliteMembers = new ArrayList<Chromosome>();
+    //the migrants added since the offspring were bred
+    private PopulationArena migrants;
+    private List<Chromosome> migrantMembers = new ArrayList<Chromosome>();
+    
+    //the view and random number stream of each thread
+    private final ThreadLocal<View> views = new ThreadLocal<View>();
+    
+    //statistics of the candidates in the last selection
+    private int offered = 0;
+    private double mean = Double.NaN;
+    private double worst = Double.NaN;
+    
+    /**
+     * @param ga the GeneticAlgorithm to run the generations for
+     * @param template the DoubleGenome the GeneticAlgorithm was created with
+     */
+    ArenaGeneration(GeneticAlgorithm ga, DoubleGenome template){
+        this.ga = ga;
+        this.template = template;
+        this.offspring = new PopulationArena(ga.getCandidatePopulationSize(), template.getLength());
+        this.elite = new PopulationArena(0, template.getLength());
+        this.migrants = new PopulationArena(0, template.getLength());
+    }
+    
+    /**
+     * Populates every record with a new genome.
+     * 
+     * @param seed the seed of the random number streams of the generation
+     * @return true if the population was created, false if an error 
+     * occurred and has been reported
+     */
+    boolean create(final long seed){
+        return ga.forEachIndex(offspring.size(), chunkSize(), new GeneticAlgorithm.IndexedTask(){
+            @Override
+            public void run(int index) throws Exception {
+                View v = view(seed, index);
+                try{
+                    v.genome.recycle();
+                    v.genome.populateGenes();
+                    offspring.write(index, v.genome.getValues());
+                }finally{
+                    ga.bindRandom(null);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Breeds an offspring into every record from the breed population, in 
+     * the same way as DoubleGenome.breed followed by a mutation.
+     * 
+     * @param seed the seed of the random number streams of the generation
+     * @return true if the offspring were bred, false if an error occurred 
+     * and has been reported
+     */
+    boolean breed(final long seed){
+        final List<Chromosome> parents = ga.getBreedPopulation();
+        final int size = parents.size();
+        if ( size == 0 ){
+            ga.reportError(new IllegalStateException("There are no Chromosome objects to breed from"));
+            return false;
+        }
+        
+        //the breed population may have changed since it was selected so 
+        //copy it into an arena of its own
+        elite = copy(parents, elite);
+        eliteMembers = new ArrayList<Chromosome>(parents);
+        
+        final double mutationRate = ga.getMutationRate();
+        return ga.forEachIndex(offspring.size(), chunkSize(), new GeneticAlgorithm.IndexedTask(){
+            @Override
+            public void run(int index) throws Exception {
+                View v = view(seed, index);
+                try{
+                    long chosen = ga.chooseParents(index, size, v.stream);
+                    int first = (int)(chosen >>> 32);
+                    int partner = (int)chosen;
+                    double[] bred = v.genome.getValues();
+                    long mask = 0;
+                    for (int i = 0; i < bred.length; i++) {
+                        if ( (i & 63) == 0 ){mask = v.stream.nextLong();}
+                        bred[i] = elite.getValue((mask & (1L << (i & 63))) != 0 ? first : partner, i);
+                    }
+                    v.genome.recycle();
+                    if ( v.stream.nextDouble() < mutationRate ){
+                        v.genome.mutate();
+                    }
+                    offspring.write(index, bred);
+                }finally{
+                    ga.bindRandom(null);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Calculates the fitness of every record.
+     * 
+     * @return true if every record was evaluated, false if an error 
+     * occurred and has been reported
+     */
+    boolean evaluate(){
+        return ga.forEachIndex(offspring.size(), chunkSize(), new GeneticAlgorithm.IndexedTask(){
+            @Override
+            public void run(int index) throws Exception {
+                DoubleGenome genome = view().genome;
+                offspring.read(index, genome.getValues());
+                genome.recycle();
+                offspring.setFitness(index, ga.calculateFitness(genome));
+            }
+        });
+    }
+    
+    /**
+     * Copies evaluated Chromosome objects into an arena, reusing the arena 
+     * given if it is the right size.
+     * 
+     * @return the arena holding the copies
+     */
+    private PopulationArena copy(List<Chromosome> members, PopulationArena arena){
+        int size = members.size();
+        if ( arena.size() != size ){
+            arena = new PopulationArena(size, template.getLength());
+        }
+        for (int i = 0; i < size; i++) {
+            DoubleGenome member = (DoubleGenome)members.get(i);
+            arena.write(i, member.getValues());
+            arena.setFitness(i, member.getFitness());
+        }
+        return arena;
+    }
+    
+    /**
+     * Selects the best distinct genomes from the offspring followed by the 
+     * migrants and the breed population the offspring were bred from, and 
+     * replaces the breed population with them as Chromosome objects, best 
+     * first.  The migrants and the members of the old breed population that 
+     * are selected are kept as they are.
+     * 
+     * @param count the maximum number to select
+     * @param ascending true if smaller fitness values are better
+     * @param added the evaluated migrants added to the candidate population 
+     * since the offspring were bred
+     * @return true if the breed population was selected, false if an error 
+     * occurred and has been reported
+     */
+    boolean select(int count, boolean ascending, List<Chromosome> added){
+        migrants = copy(added, migrants);
+        migrantMembers = new ArrayList<Chromosome>(added);
+        int n = offspring.size();
+        int candidates = n + migrants.size();
+        int total = candidates + elite.size();
+        int capacity = Math.min(count, total);
+        
+        SelectionHeap<RecordKey> heap = new SelectionHeap<RecordKey>(capacity);
+        
+        double sum = 0.0;
+        int counted = 0;
+        worst = Double.NaN;
+        for (int p = 0; p < total; p++) {
+            double f = fitness(p);
+            //the statistics only cover the offspring and migrants
+            if ( p < candidates && !Double.isNaN(f) ){
+                sum += f;
+                counted++;
+                if ( Double.isNaN(worst) || (ascending ? f > worst : f < worst) ){
+                    worst = f;
+                }
+            }
+            
+            //only hash the records that would be kept
+            double key = SelectionHeap.key(f, ascending);
+            if ( heap.accepts(key, p) ){
+                heap.offer(new RecordKey(p), key, p);
+            }
+        }
+        offered = candidates;
+        mean = counted == 0 ? Double.NaN : sum / counted;
+        
+        List<Chromosome> breedPopulation = ga.getBreedPopulation();
+        breedPopulation.clear();
+        try{
+            for (RecordKey record : heap.drain()) {
+                int p = record.position;
+                if ( p >= candidates ){
+                    breedPopulation.add(eliteMembers.get(p - candidates));
+                }else if ( p >= n ){
+                    breedPopulation.add(migrantMembers.get(p - n));
+                }else{
+                    double[] values = new double[offspring.length()];
+                    offspring.read(p, values);
+                    Chromosome c = template.importGenome(ga, values);
+                    c.setFitness(offspring.getFitness(p));
+                    breedPopulation.add(c);
+                }
+            }
+        }catch(InstantiationException e){
+            ga.reportError(e);
+            return false;
+        }
+        migrantMembers = new ArrayList<Chromosome>();
+        return true;
+    }
+    
+    //the arena holding a position of the selection
+    private PopulationArena arena(int position){
+        int n = offspring.size();
+        if ( position < n ){return offspring;}
+        return position < n + migrants.size() ? migrants : elite;
+    }
+    
+    //the record of a position of the selection within its arena
+    private int record(int position){
+        int n = offspring.size();
+        if ( position < n ){return position;}
+        int m = migrants.size();
+        return position < n + m ? position - n : position - n - m;
+    }
+    
+    private double fitness(int position){
+        return arena(position).getFitness(record(position));
+    }
+    
+    int getOffered(){
+        return offered;
+    }
+    
+    double getMean(){
+        return mean;
+    }
+    
+    double getWorst(){
+        return worst;
+    }
+    
+    //evaluation is handed out in small chunks as it may take a while
+    private int chunkSize(){
+        return Math.max(1, offspring.size() / (ga.getParallelism() * 64));
+    }
+    
+    //the view of the calling thread with its stream set for an offspring
+    private View view(long seed, int index){
+        View v = view();
+        v.stream.reseed(seed, index);
+        ga.bindRandom(v.stream);
+        return v;
+    }
+    
+    private View view() throws IllegalStateException{
+        View v = views.get();
+        if ( v == null ){
+            try{
+                v = new View((DoubleGenome)template.newInstance(ga));
+            }catch(InstantiationException e){
+                throw new IllegalStateException("Cannot create a view of " + template.getClass().getName(), e);
+            }
+            views.set(v);
+        }
+        return v;
+    }
+    
+    private static final class View{
+        final DoubleGenome genome;
+        final StreamRandom stream = new StreamRandom(0L, 0L);
+        
+        View(DoubleGenome genome){
+            this.genome = genome;
+        }
+    }
+    
+    /**
+     * A record of the offspring, migrants or breed population compared by 
+     * its values, used to find duplicates.
+     */
+    private final class RecordKey{
+        private final PopulationArena arena;
+        private final int record;
+        private final int hash;
+        final int position;
+        
+        RecordKey(int position){
+            this.position = position;
+            arena = arena(position);
+            record = record(position);
+            hash = arena.hash(record);
+        }
+        
+        @Override
+        public int hashCode(){
+            return hash;
+        }
+        
+        @Override
+        public boolean equals(Object o){
+            if ( !(o instanceof RecordKey) ){return false;}
+            RecordKey other = (RecordKey)o;
+            return hash == other.hash && arena.equal(record, other.arena, other.record);
+        }
+    }
+    
+}
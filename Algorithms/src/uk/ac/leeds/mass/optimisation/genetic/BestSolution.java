@@ -0,0 +1,96 @@
+/**
+ * The best Chromosome found so far by a GeneticAlgorithm, published each 
+ * time a better one is found so it can be read from another thread while the 
+ * algorithm is running.  A BestSolution never changes once it has been 
+ * published: it holds a private copy of the Chromosome which the 
+ * GeneticAlgorithm does not use, along with the fitness and the generation 
+ * it was found in.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public final class BestSolution {
+    
+    private final Chromosome chromosome;
+    private final double fitness;
+    private final double[] objectiveValues;
+    private final int generation;
+    private final long evaluations;
+    private final long elapsedTime;
+    
+    BestSolution(Chromosome chromosome, double fitness, double[] objectiveValues, 
+            int generation, long evaluations, long elapsedTime){
+        this.chromosome = chromosome;
+        this.fitness = fitness;
+        this.objectiveValues = objectiveValues;
+        this.generation = generation;
+        this.evaluations = evaluations;
+        this.elapsedTime = elapsedTime;
+    }
+    
+    /**
+     * Returns the copy of the best Chromosome.  The same copy is returned to 
+     * every caller so it should not be changed.
+     * 
+     * @return the best Chromosome
+     */
+    public Chromosome getChromosome() {
+        return chromosome;
+    }
+    
+    /**
+     * @return the fitness of the best Chromosome
+     */
+    public double getFitness() {
+        return fitness;
+    }
+    
+    /**
+     * @return the value of each objective for the best Chromosome when 
+     * calibrating to several objectives, otherwise null
+     */
+    public double[] getObjectiveValues() {
+        return objectiveValues == null ? null : objectiveValues.clone();
+    }
+    
+    /**
+     * @return the genes of the best Chromosome as returned by 
+     * Chromosome.getGenomeVector, or null if they have no numeric form
+     */
+    public double[] getGenomeVector() {
+        return chromosome.getGenomeVector();
+    }
+    
+    /**
+     * @return the generation the best Chromosome was found in, starting at 
+     * 0 for the initial population
+     */
+    public int getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * @return the number of fitness calculations made in the run when the 
+     * best Chromosome was found
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+    
+    /**
+     * @return the nanoseconds from the start of the run to when the best 
+     * Chromosome was found
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+    
+    @Override
+    public String toString(){
+        return "Generation " + generation + " after " + evaluations + " evaluations: " + chromosome;
+    }
+    
+}
@@ -0,0 +1,230 @@
+/**
+ * Chromosome holding its genes as a fixed length string of bits packed into 
+ * an array of longs.  Breeding combines 64 bits at a time and mutation flips 
+ * a single bit so no Gene objects are created.  Suitable for selecting 
+ * subsets, such as which zones or terms to include in a model.
+ * 
+ * Extend this class, pass the length to the constructor and implement 
+ * calculateFitness using getBit.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ *
+ * @author kirkharland
+ */
+public abstract class BitGenome extends Chromosome {
+    
+    private long[] words = null;
+    private int length = 0;
+    
+    protected BitGenome(){}
+    
+    protected BitGenome(GeneticAlgorithm parent){
+        super(parent);
+    }
+    
+    /**
+     * @param length the number of bits in the genome
+     */
+    protected BitGenome(int length){
+        if ( length < 0 ){
+            throw new IllegalArgumentException("Length cannot be negative: " + length);
+        }
+        this.length = length;
+        this.words = new long[(length + 63) >>> 6];
+    }
+
+    @Override
+    protected void initialiseFrom(Chromosome template) {
+        BitGenome t = (BitGenome) template;
+        length = t.length;
+        if ( words == null || words.length != t.words.length ){
+            words = new long[t.words.length];
+        }
+    }
+    
+    /**
+     * Sets each bit at random.  Override to start the population from 
+     * somewhere else.
+     */
+    @Override
+    protected void populateGenes() {
+        Random random = getParent().getRandom();
+        for (int i = 0; i < words.length; i++) {
+            words[i] = random.nextLong();
+        }
+        clearUnusedBits();
+    }
+    
+    /**
+     * Uniform crossover, each bit is taken from one or other of the parents 
+     * using a random mask for each 64 bits.
+     */
+    @Override
+    Chromosome breed(Chromosome partner, Chromosome spare) throws InstantiationException {
+        BitGenome other = (BitGenome) partner;
+        if ( other.length != length ){
+            throw new IllegalArgumentException("Cannot breed genomes of length " + length + " and " + other.length);
+        }
+        BitGenome child = (BitGenome) newOffspring(spare);
+        Random random = getParent().getRandom();
+        boolean track = getParent().isIncremental();
+        if ( track ){
+            child.trackChangesFrom(this);
+        }
+        for (int i = 0; i < words.length; i++) {
+            long mask = random.nextLong();
+            child.words[i] = (words[i] & mask) | (other.words[i] & ~mask);
+            if ( track ){
+                //record each bit that differs from this parent
+                for (long changed = child.words[i] ^ words[i]; changed != 0; changed &= changed - 1) {
+                    child.geneChanged((i << 6) + Long.numberOfTrailingZeros(changed));
+                }
+            }
+        }
+        return child;
+    }
+    
+    @Override
+    Chromosome copyTo(GeneticAlgorithm owner) throws InstantiationException {
+        BitGenome copy = (BitGenome) newInstance(owner);
+        System.arraycopy(words, 0, copy.words, 0, words.length);
+        copy.copyFitness(this);
+        return copy;
+    }
+    
+    @Override
+    Serializable exportGenome() {
+        return words.clone();
+    }
+
+    @Override
+    Chromosome importGenome(GeneticAlgorithm owner, Object genome) throws InstantiationException {
+        long[] imported = (long[]) genome;
+        if ( imported.length != words.length ){
+            throw new IllegalArgumentException("Cannot import genome of length " + imported.length);
+        }
+        BitGenome chromosome = (BitGenome) newInstance(owner);
+        System.arraycopy(imported, 0, chromosome.words, 0, imported.length);
+        return chromosome;
+    }
+    
+    /**
+     * Randomly picks a bit and flips it.
+     */
+    @Override
+    public void mutate() {
+        if ( length > 0 ){
+            int index = getParent().getRandom().nextInt(length);
+            words[index >>> 6] ^= 1L << index;
+            geneChanged(index);
+        }
+    }
+    
+    //keep the bits past the end of the genome at zero so that equals 
+    //and hashCode only depend on the bits in use
+    private void clearUnusedBits(){
+        if ( (length & 63) != 0 ){
+            words[words.length - 1] &= (1L << length) - 1;
+        }
+    }
+    
+    /**
+     * @param index the index of the bit
+     * @return true if the bit is set
+     */
+    public boolean getBit(int index){
+        checkIndex(index);
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+    
+    /**
+     * @param index the index of the bit
+     * @param value the value to set the bit to
+     */
+    protected void setBit(int index, boolean value){
+        checkIndex(index);
+        if ( value ){
+            words[index >>> 6] |= 1L << index;
+        }else{
+            words[index >>> 6] &= ~(1L << index);
+        }
+        geneChanged(index);
+    }
+    
+    private void checkIndex(int index){
+        if ( index < 0 || index >= length ){
+            throw new IndexOutOfBoundsException("Bit " + index + " of " + length);
+        }
+    }
+    
+    /**
+     * @return the number of bits in this genome
+     */
+    public int getLength(){
+        return length;
+    }
+    
+    /**
+     * @return the bits of this genome, 1.0 where the bit is set and 0.0 
+     * where it is not
+     */
+    @Override
+    public double[] getGenomeVector(){
+        double[] vector = new double[length];
+        for (int i = 0; i < length; i++) {
+            if ( (words[i >>> 6] & (1L << i)) != 0 ){
+                vector[i] = 1.0;
+            }
+        }
+        return vector;
+    }
+    
+    /**
+     * @return the number of bits that are set
+     */
+    public int cardinality(){
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count;
+    }
+    
+    @Override
+    public String toString(){
+        StringBuilder s = new StringBuilder("Genes: ");
+        for (int i = 0; i < length; i++) {
+            s.append(getBit(i) ? '1' : '0');
+        }
+        s.append(" Fitness: ").append(getFitness());
+        return s.toString();
+    }
+    
+    @Override
+    public boolean equals(Object o){
+        if ( o instanceof BitGenome ){
+            BitGenome other = (BitGenome)o;
+            return length == other.length && Arrays.equals(words, other.words);
+        }
+        return false;
+    }
+
+    @Override
+    GenomeKey genomeKey(boolean copy) {
+        return new GenomeKey(copy ? words.clone() : words, Arrays.hashCode(words));
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 5;
+        hash = 47 * hash + Arrays.hashCode(words);
+        return hash;
+    }
+    
+}
@@ -0,0 +1,224 @@
+/**
+ * The state of a GeneticAlgorithm at the end of a generation: the generation 
+ * number, the number of evaluations made, the state of the random number 
+ * generator and the genomes and fitness values of the breed population.  
+ * This is enough to carry on the run from the next generation with the 
+ * same breed populations as if it had never stopped.  What is not saved is 
+ * listed in GeneticAlgorithm.loadCheckpoint.
+ * 
+ * Checkpoints are written to a compact binary file using a FileChannel.  The 
+ * file is written to a temporary file which then replaces the checkpoint so 
+ * a crash part way through writing never leaves a damaged checkpoint.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class Checkpoint {
+    
+    //"GACP" followed by the format version
+    private static final int MAGIC = 0x47414350;
+    private static final int VERSION = 2;
+    
+    private final int generation;
+    //-1 in a version 1 checkpoint, which did not save it
+    private final long evaluations;
+    private final byte[] randomState;
+    private final double[] fitness;
+    private final Serializable[] genomes;
+    
+    private Checkpoint(int generation, long evaluations, byte[] randomState, double[] fitness, Serializable[] genomes){
+        this.generation = generation;
+        this.evaluations = evaluations;
+        this.randomState = randomState;
+        this.fitness = fitness;
+        this.genomes = genomes;
+    }
+    
+    /**
+     * Takes a copy of the state of the run.  This is called on the thread 
+     * running the GeneticAlgorithm and only copies the state, the slow work 
+     * of writing it out is left to write.
+     * 
+     * @param generation the generation that has just finished
+     * @param evaluations the number of evaluations made so far in the run
+     * @param random the random number generator of the GeneticAlgorithm
+     * @param breedPopulation the breed population selected in the generation
+     * @return the checkpoint
+     * @throws IOException if the random number generator cannot be saved
+     */
+    static Checkpoint capture(int generation, long evaluations, Random random, List<Chromosome> breedPopulation) 
+            throws IOException{
+        double[] fitness = new double[breedPopulation.size()];
+        Serializable[] genomes = new Serializable[breedPopulation.size()];
+        for (int i = 0; i < genomes.length; i++) {
+            Chromosome c = breedPopulation.get(i);
+            fitness[i] = c.getFitness();
+            genomes[i] = c.exportGenome();
+        }
+        return new Checkpoint(generation, evaluations, serialize(random), fitness, genomes);
+    }
+    
+    /**
+     * Writes this checkpoint to the file, replacing any existing checkpoint.
+     * 
+     * @param file the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    void write(Path file) throws IOException{
+        byte[] genomeBytes = serialize(genomes);
+        
+        ByteBuffer buffer = ByteBuffer.allocate(5 * 4 + 8 + randomState.length + fitness.length * 8 + genomeBytes.length);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(generation);
+        buffer.putLong(evaluations);
+        buffer.putInt(randomState.length);
+        buffer.put(randomState);
+        buffer.putInt(fitness.length);
+        for (int i = 0; i < fitness.length; i++) {
+            buffer.putDouble(fitness[i]);
+        }
+        buffer.put(genomeBytes);
+        buffer.flip();
+        
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, 
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try{
+            while ( buffer.hasRemaining() ){
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }finally{
+            channel.close();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Reads a checkpoint written by write.
+     * 
+     * @param file the file to read
+     * @return the checkpoint
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     */
+    static Checkpoint read(Path file) throws IOException{
+        ByteBuffer buffer;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try{
+            long size = channel.size();
+            if ( size > Integer.MAX_VALUE ){
+                throw new IOException("Checkpoint file too large: " + file);
+            }
+            buffer = ByteBuffer.allocate((int)size);
+            while ( buffer.hasRemaining() && channel.read(buffer) >= 0 ){}
+            buffer.flip();
+        }finally{
+            channel.close();
+        }
+        
+        try{
+            if ( buffer.getInt() != MAGIC ){
+                throw new IOException("Not a checkpoint file: " + file);
+            }
+            int version = buffer.getInt();
+            if ( version != 1 && version != VERSION ){
+                throw new IOException("Unsupported checkpoint version " + version + ": " + file);
+            }
+            int generation = buffer.getInt();
+            long evaluations = version == 1 ? -1 : buffer.getLong();
+            byte[] randomState = new byte[buffer.getInt()];
+            buffer.get(randomState);
+            double[] fitness = new double[buffer.getInt()];
+            for (int i = 0; i < fitness.length; i++) {
+                fitness[i] = buffer.getDouble();
+            }
+            byte[] genomeBytes = new byte[buffer.remaining()];
+            buffer.get(genomeBytes);
+            Serializable[] genomes = (Serializable[]) deserialize(genomeBytes);
+            if ( genomes.length != fitness.length ){
+                throw new IOException("Damaged checkpoint file: " + file);
+            }
+            return new Checkpoint(generation, evaluations, randomState, fitness, genomes);
+        }catch(RuntimeException e){
+            throw new IOException("Damaged checkpoint file: " + file, e);
+        }
+    }
+    
+    /**
+     * @return the generation that had finished when the checkpoint was taken
+     */
+    int getGeneration(){
+        return generation;
+    }
+    
+    /**
+     * @return the number of evaluations made in the run when the checkpoint 
+     * was taken, or -1 if it was not saved
+     */
+    long getEvaluations(){
+        return evaluations;
+    }
+    
+    /**
+     * @return the random number generator in the state it was in when the 
+     * checkpoint was taken
+     * @throws IOException if the random number generator cannot be restored
+     */
+    Random restoreRandom() throws IOException{
+        return (Random) deserialize(randomState);
+    }
+    
+    /**
+     * Recreates the breed population in the order it was saved.
+     * 
+     * @param owner the GeneticAlgorithm being resumed
+     * @param breedPopulation the list to add the Chromosome objects to
+     * @throws InstantiationException if a Chromosome cannot be created
+     */
+    void restorePopulation(GeneticAlgorithm owner, List<Chromosome> breedPopulation) throws InstantiationException{
+        for (int i = 0; i < genomes.length; i++) {
+            Chromosome c = owner.getChromosome().importGenome(owner, genomes[i]);
+            c.setFitness(fitness[i]);
+            breedPopulation.add(c);
+        }
+    }
+    
+    private static byte[] serialize(Object o) throws IOException{
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(o);
+        out.close();
+        return bytes.toByteArray();
+    }
+    
+    private static Object deserialize(byte[] b) throws IOException{
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(b));
+        try{
+            return in.readObject();
+        }catch(ClassNotFoundException e){
+            throw new IOException("Checkpoint holds an unknown class", e);
+        }finally{
+            in.close();
+        }
+    }
+    
+}
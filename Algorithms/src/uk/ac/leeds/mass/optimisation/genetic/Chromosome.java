@@ -3,14 +3,18 @@
  * Extend this class into a class that controls a process to be optimised.  There are 
  * two methods to be implemented to ensure correct operation populateGenes and calculateFitness.
  * 
+ * For problems made up of numbers or bits the DoubleGenome, IntGenome and 
+ * BitGenome sub classes hold the genes in primitive arrays instead of a 
+ * list of Gene objects and are much cheaper to breed.
+ * 
  */
 package uk.ac.leeds.mass.optimisation.genetic;
 
-import java.lang.reflect.Constructor;
+import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Objects;
-import sun.reflect.ReflectionFactory;
 import uk.ac.leeds.mass.statistics.gof.IGOF;
 
 /**
@@ -22,7 +26,22 @@ import uk.ac.leeds.mass.statistics.gof.IGOF;
 public abstract class Chromosome {
     
     private ArrayList<Gene> genes = new ArrayList<Gene>();
-    private Double fitness = null;
+    //volatile so that a fitness calculated on an evaluation thread is
+    //visible to the thread running the GeneticAlgorithm
+    private volatile Double fitness = null;
+    //the value of each objective when calibrating to several IGOF at once
+    private volatile double[] objectiveValues = null;
+    
+    //for IIncrementalFitness, the state the fitness was calculated with, 
+    //and until then the Chromosome this one was bred from and the indexes 
+    //of the genes that differ from it
+    private volatile IFitnessState fitnessState = null;
+    private Chromosome origin = null;
+    private int[] changedGenes = null;
+    private int changedCount = 0;
+    
+    //used by the GeneticAlgorithm to find the Chromosome objects it can reuse
+    int poolStamp = 0;
     
     private GeneticAlgorithm parent = null;
     
@@ -49,13 +68,24 @@ public abstract class Chromosome {
      * @return a new Chromosome object which is completely separate from the
      * two Chromosome objects used to breed it, the genes used in the new 
      * Chromosome are cloned to ensure no unexpected mutations happen.
-     * @throws InstantiationException
-     * @throws IllegalAccessException
-     * @throws IllegalArgumentException
-     * @throws InvocationTargetException
-     * @throws NoSuchMethodException 
+     * @throws InstantiationException if the new Chromosome cannot be created
+     */
+    Chromosome breed(Chromosome partner) throws InstantiationException{
+        return breed(partner, null);
+    }
+    
+    /**
+     * Breeds the two chromosomes together, reusing a Chromosome that is no 
+     * longer needed for the offspring if it is given and is of the same sub 
+     * class.  For a Chromosome with a gene list the list itself is reused, 
+     * the genes are still cloned.
+     * 
+     * @param partner The Chromosome with which to breed this one
+     * @param spare a Chromosome that is no longer needed, or null
+     * @return the offspring
+     * @throws InstantiationException if the new Chromosome cannot be created
      */
-    Chromosome breed(Chromosome partner) throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException{
+    Chromosome breed(Chromosome partner, Chromosome spare) throws InstantiationException{
         int min = genes.size();
         int max = genes.size();
         
@@ -65,7 +95,17 @@ public abstract class Chromosome {
             min = partner.getGenes().size();
         }
         
-        ArrayList<Gene> bredGenes = new ArrayList<Gene>();
+        boolean reuse = canRecycle(spare);
+        ArrayList<Gene> bredGenes;
+        if ( reuse ){
+            bredGenes = spare.genes;
+            bredGenes.clear();
+        }else{
+            bredGenes = new ArrayList<Gene>();
+        }
+        boolean track = parent.isIncremental();
+        int[] changed = null;
+        int changes = 0;
         
         for (int i = 0; i < max; i++) {
             if ( i > min ){
@@ -91,6 +131,11 @@ public abstract class Chromosome {
                 //partener if not add them from this chromosome
                 if (i<partner.getGenes().size()){
                     bredGenes.add(partner.getGenes().get(i).clone());
+                    if ( track && (i >= genes.size() || !genes.get(i).equals(partner.getGenes().get(i))) ){
+                        if ( changed == null ){changed = new int[4];}
+                        if ( changes == changed.length ){changed = Arrays.copyOf(changed, changes << 1);}
+                        changed[changes++] = i;
+                    }
                 }else{
                     bredGenes.add(genes.get(i).clone());
                 }
@@ -98,9 +143,21 @@ public abstract class Chromosome {
             
         }
         
-        Class[] parameterDefinition = {parent.getClass(),bredGenes.getClass()};
-        Object[] parameters = {parent, bredGenes};
-        Chromosome chromosome = instantiateNewChromosomeSubObject(parameterDefinition, parameters);
+        Chromosome chromosome;
+        if ( reuse ){
+            spare.recycle();
+            chromosome = spare;
+        }else{
+            chromosome = chromosomeFactory(parent).newChromosome(parent, bredGenes);
+        }
+        chromosome.initialiseFrom(this);
+        //the fitness can only be updated if the genes line up with this one
+        if ( track && bredGenes.size() == genes.size() ){
+            chromosome.trackChangesFrom(this);
+            for (int i = 0; i < changes; i++) {
+                chromosome.geneChanged(changed[i]);
+            }
+        }
         return chromosome;
         
     }
@@ -110,15 +167,137 @@ public abstract class Chromosome {
      * calculated once so if changes are made to this object the
      * fitness cannot be recalculated.
      * 
+     * This method is safe to call from several threads at once, the 
+     * fitness is only ever calculated by the first caller and the 
+     * others wait for the result.
+     * 
      * @return a double value representing the fitness of this 
      * Chromosome using the IGOF object set in the parent GeneticAlgorithm
      * object.
      */
     double getFitness(){
-        if ( fitness==null ){
-            fitness = new Double(calculateFitness(parent.getGof()));
+        Double f = fitness;
+        if ( f==null ){
+            synchronized(this){
+                f = fitness;
+                if ( f==null ){
+                    f = Double.valueOf(parent.calculateFitness(this));
+                    fitness = f;
+                }
+            }
+        }
+        return f.doubleValue();
+    }
+    
+    /**
+     * Calculates the fitness of a Chromosome implementing IIncrementalFitness, 
+     * by updating the state of the Chromosome it was bred from if that is 
+     * known and from scratch if not.
+     * 
+     * @param gof the IGOF to calculate the fitness with
+     * @return the fitness
+     */
+    double calculateIncrementalFitness(IGOF gof){
+        IIncrementalFitness incremental = (IIncrementalFitness) this;
+        IFitnessState parentState = origin == null ? null : origin.fitnessState;
+        IFitnessState state;
+        if ( parentState == null ){
+            state = incremental.calculateFitnessState(gof);
+        }else{
+            state = incremental.updateFitnessState(gof, parentState, getChangedGenes());
         }
-        return fitness.doubleValue();
+        fitnessState = state;
+        //let go of the parent so that a line of descent is not kept alive
+        origin = null;
+        changedGenes = null;
+        return state.getFitness();
+    }
+    
+    /**
+     * Starts recording the genes of this Chromosome that differ from the 
+     * Chromosome it was bred from.
+     * 
+     * @param origin the Chromosome this one was bred from
+     */
+    void trackChangesFrom(Chromosome origin){
+        this.origin = origin;
+        this.changedGenes = null;
+        this.changedCount = 0;
+    }
+    
+    /**
+     * Records that a gene has changed since this Chromosome was bred, so 
+     * that a fitness calculated with IIncrementalFitness can be updated.  
+     * This does nothing unless changes are being recorded.
+     * 
+     * @param index the index of the gene, or of the value or bit for the 
+     * genome classes
+     */
+    protected void geneChanged(int index){
+        if ( origin == null ){return;}
+        if ( changedGenes == null ){
+            changedGenes = new int[4];
+        }else if ( changedCount == changedGenes.length ){
+            changedGenes = Arrays.copyOf(changedGenes, changedCount << 1);
+        }
+        changedGenes[changedCount++] = index;
+    }
+    
+    /**
+     * @return the distinct indexes of the genes changed since this 
+     * Chromosome was bred in ascending order
+     */
+    int[] getChangedGenes(){
+        if ( changedGenes == null ){return new int[0];}
+        int[] sorted = Arrays.copyOf(changedGenes, changedCount);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if ( i == 0 || sorted[i] != sorted[i - 1] ){
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+    
+    /**
+     * @return true if the fitness of this Chromosome is known
+     */
+    boolean isEvaluated(){
+        return fitness != null;
+    }
+    
+    /**
+     * Returns the value of each of the objectives set on the parent 
+     * GeneticAlgorithm, calculating them the first time this is called.  
+     * Like getFitness this is safe to call from several threads at once.  
+     * The array returned is shared and must not be changed.
+     * 
+     * @return the value of each objective in the order they were set
+     */
+    double[] objectives(){
+        double[] v = objectiveValues;
+        if ( v==null ){
+            synchronized(this){
+                v = objectiveValues;
+                if ( v==null ){
+                    v = parent.calculateObjectives(this);
+                    objectiveValues = v;
+                }
+            }
+        }
+        return v;
+    }
+    
+    /**
+     * Returns the value of each of the objectives set on the parent 
+     * GeneticAlgorithm, such as for the members of the Pareto front.
+     * 
+     * @return a copy of the value of each objective in the order they 
+     * were set
+     */
+    public double[] getObjectiveValues(){
+        return objectives().clone();
     }
     
     /**
@@ -137,14 +316,173 @@ public abstract class Chromosome {
     protected Chromosome createNewChromosome(GeneticAlgorithm parent) throws NoSuchMethodException, 
             InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException{
         
-        Class[] parameterDefinition = {parent.getClass()};
-        Object[] parameter = {parent};
-        Chromosome chromosome = instantiateNewChromosomeSubObject(parameterDefinition, parameter);
+        Chromosome chromosome = chromosomeFactory(parent).newChromosome(parent);
+        chromosome.initialiseFrom(this);
         chromosome.populateGenes();
         return chromosome;
 
     }
     
+    /**
+     * Creates a new empty Chromosome of the same sub class as this one, 
+     * initialised from this Chromosome but with no genes populated.  Used 
+     * by sub classes that hold their genes outside of the Gene list when 
+     * breeding.
+     * 
+     * @return A new Chromosome Object with the same parent as this one
+     * @throws InstantiationException if the new Chromosome cannot be created
+     */
+    Chromosome newOffspring() throws InstantiationException{
+        return newInstance(parent);
+    }
+    
+    /**
+     * Returns an empty Chromosome of the same sub class as this one for an 
+     * offspring, reusing the spare given if it can be.
+     * 
+     * @param spare a Chromosome that is no longer needed, or null
+     * @return A Chromosome Object with the same parent as this one, its 
+     * genes are left as they were in the spare
+     * @throws InstantiationException if the new Chromosome cannot be created
+     */
+    Chromosome newOffspring(Chromosome spare) throws InstantiationException{
+        if ( canRecycle(spare) ){
+            spare.recycle();
+            spare.initialiseFrom(this);
+            return spare;
+        }
+        return newOffspring();
+    }
+    
+    //a spare can be reused if it was created in the same way as this one
+    private boolean canRecycle(Chromosome spare){
+        return spare != null && spare != this && spare.getClass() == getClass() && spare.parent == parent;
+    }
+    
+    /**
+     * Clears everything calculated for this Chromosome so that it can be 
+     * reused for a new offspring.
+     */
+    void recycle(){
+        fitness = null;
+        objectiveValues = null;
+        fitnessState = null;
+        origin = null;
+        changedGenes = null;
+        changedCount = 0;
+    }
+    
+    /**
+     * Creates a new empty Chromosome of the same sub class as this one, 
+     * initialised from this Chromosome but belonging to the GeneticAlgorithm 
+     * given.
+     * 
+     * @param owner the GeneticAlgorithm the new Chromosome belongs to
+     * @return A new Chromosome Object with no genes populated
+     * @throws InstantiationException if the new Chromosome cannot be created
+     */
+    Chromosome newInstance(GeneticAlgorithm owner) throws InstantiationException{
+        Chromosome chromosome = chromosomeFactory(owner).newChromosome(owner);
+        chromosome.initialiseFrom(this);
+        return chromosome;
+    }
+    
+    /**
+     * Creates an independent copy of this Chromosome belonging to another 
+     * GeneticAlgorithm, used to move Chromosome objects between populations.  
+     * The genes are cloned and the fitness, if it has been calculated, is 
+     * carried across so it does not need to be calculated again.
+     * 
+     * @param owner the GeneticAlgorithm the copy belongs to
+     * @return A copy of this Chromosome
+     * @throws InstantiationException if the copy cannot be created
+     */
+    Chromosome copyTo(GeneticAlgorithm owner) throws InstantiationException{
+        ArrayList<Gene> copiedGenes = new ArrayList<Gene>(genes.size());
+        for (Gene g : genes) {
+            copiedGenes.add(g.clone());
+        }
+        Chromosome chromosome = chromosomeFactory(owner).newChromosome(owner, copiedGenes);
+        chromosome.initialiseFrom(this);
+        chromosome.fitness = fitness;
+        chromosome.objectiveValues = objectiveValues;
+        chromosome.fitnessState = fitnessState;
+        return chromosome;
+    }
+    
+    /**
+     * Returns an independent copy of the genes of this Chromosome that can 
+     * be written to a stream, used to send Chromosome objects to another 
+     * process.  The Gene sub classes must implement Serializable.
+     * 
+     * @return a serializable copy of the genes
+     */
+    Serializable exportGenome(){
+        ArrayList<Gene> copiedGenes = new ArrayList<Gene>(genes.size());
+        for (Gene g : genes) {
+            copiedGenes.add(g.clone());
+        }
+        return copiedGenes;
+    }
+    
+    /**
+     * Creates a Chromosome of the same sub class as this one from genes 
+     * returned by exportGenome.
+     * 
+     * @param owner the GeneticAlgorithm the new Chromosome belongs to
+     * @param genome the genes returned by exportGenome
+     * @return A new Chromosome Object holding the genes
+     * @throws InstantiationException if the Chromosome cannot be created
+     */
+    @SuppressWarnings("unchecked")
+    Chromosome importGenome(GeneticAlgorithm owner, Object genome) throws InstantiationException{
+        Chromosome chromosome = chromosomeFactory(owner).newChromosome(owner, (ArrayList<Gene>)genome);
+        chromosome.initialiseFrom(this);
+        return chromosome;
+    }
+    
+    /**
+     * Sets the fitness of this Chromosome when it is known without calling 
+     * calculateFitness, such as when it has been calculated elsewhere.
+     * 
+     * @param fitness the fitness of this Chromosome
+     */
+    void setFitness(double fitness){
+        this.fitness = Double.valueOf(fitness);
+    }
+    
+    /**
+     * Carries the fitness of another Chromosome with an identical genome 
+     * across to this one.
+     * 
+     * @param source the Chromosome to take the fitness from
+     */
+    void copyFitness(Chromosome source){
+        fitness = source.fitness;
+        objectiveValues = source.objectiveValues;
+        fitnessState = source.fitnessState;
+    }
+    
+    /**
+     * Called on a newly created Chromosome with the Chromosome it was created 
+     * from before any genes are populated.  Sub classes holding settings that 
+     * are shared by every member of the population (such as the bounds of 
+     * the values) should override this to copy them across, as Chromosome 
+     * objects created through the default factory may not have had the sub 
+     * class constructor called.
+     * 
+     * @param template the Chromosome this one was created from
+     */
+    protected void initialiseFrom(Chromosome template){}
+    
+    /**
+     * @return the GeneticAlgorithm this Chromosome belongs to, or null 
+     * if this is the Chromosome the GeneticAlgorithm was created with.
+     */
+    protected GeneticAlgorithm getParent(){
+        return parent;
+    }
+    
     
     /**
      * Abstract method to be overridden to populate the genes as 
@@ -160,6 +498,24 @@ public abstract class Chromosome {
      */
     public abstract double calculateFitness(IGOF gof);
     
+    /**
+     * Calculates the goodness of fit against several IGOF statistics at 
+     * once, used when the parent GeneticAlgorithm has been given more than 
+     * one objective.  By default this calls calculateFitness once for each 
+     * IGOF, sub classes where the fitness comes from running a model should 
+     * override it to run the model once and test the result with each IGOF.
+     * 
+     * @param gofs the IGOF objects to test with, which must not be changed
+     * @return the value of each IGOF in the same order
+     */
+    public double[] calculateFitness(IGOF[] gofs){
+        double[] values = new double[gofs.length];
+        for (int i = 0; i < gofs.length; i++) {
+            values[i] = calculateFitness(gofs[i]);
+        }
+        return values;
+    }
+    
     
     /**
      * If this Chromosome has a list of Genes, randomly picks a gene 
@@ -167,10 +523,28 @@ public abstract class Chromosome {
      */
     public void mutate(){
         if (!genes.isEmpty()){
-            genes.get( parent.getRandom().nextInt( genes.size() ) ).mutate();
+            int index = parent.getRandom().nextInt( genes.size() );
+            genes.get( index ).mutate();
+            geneChanged(index);
         }
     }
     
+    /**
+     * Returns the genes of this Chromosome as a vector of numbers, used by 
+     * an ISurrogate to predict the fitness from those of similar Chromosome 
+     * objects.  Returns null by default as a list of Gene objects has no 
+     * numeric form, sub classes that want to use a surrogate should 
+     * override this.  The same gene should always be at the same position 
+     * and the vectors of every member of the population should be the same 
+     * length.
+     * 
+     * @return a new array holding the genes as numbers, or null if they 
+     * cannot be represented as numbers
+     */
+    public double[] getGenomeVector(){
+        return null;
+    }
+    
     /**
      * Return the list of Gene objects that make up this Chromosome
      * @return An ArrayList of Gene objects
@@ -239,51 +613,38 @@ public abstract class Chromosome {
     }
     
     /**
-     * Method to create a inheriting class object using the super class 
-     * constructor.
-     * 
-     * @param parameterDefinition a Class array of the class definitions required for the 
-     * desired constructor in the declared , so that array[0] is the first parameter.
-     * @param parameters an Object array of the parameters to be used to create the object 
-     * in the order that they are required, so that array[0] is the first parameter.
+     * Returns the factory used to create new objects of this sub class.  This 
+     * is the IChromosomeFactory set on the GeneticAlgorithm if there is one, 
+     * otherwise a shared factory which caches the constructors of this sub 
+     * class.
      * 
-     * @return a sub class object using the constructor from the Chromosome super class
-     * 
-     * @throws NoSuchMethodException
-     * @throws InstantiationException
-     * @throws IllegalAccessException
-     * @throws IllegalArgumentException
-     * @throws InvocationTargetException 
+     * @param parent The calling GeneticAlgorithm Object
+     * @return the factory to create new Chromosome objects with
      */
-    private Chromosome instantiateNewChromosomeSubObject(Class[] parameterDefinition, Object[] parameters) throws 
-            NoSuchMethodException, InstantiationException, IllegalAccessException, 
-            IllegalArgumentException, InvocationTargetException{
-        
-        //get the Class of this sub class
-        Class subClass = this.getClass();
-        //get the Chromosome super class where the required constructor is
-        Class chromosomeClass = Chromosome.class;
-        
-        //Get the Constructor object for the required constructor definition from
-        //the Chromosome super Class object using the parameter definitions
-        Constructor superConstructor = chromosomeClass.getDeclaredConstructor(parameterDefinition);
-        
-        //Use the ReflectionFactory to create the same constructor definition in 
-        //the sub Class.
-        Constructor intConstr = ReflectionFactory.getReflectionFactory().newConstructorForSerialization(subClass, superConstructor);
+    IChromosomeFactory chromosomeFactory(GeneticAlgorithm parent){
+        if ( parent != null && parent.getChromosomeFactory() != null ){
+            return parent.getChromosomeFactory();
+        }
+        return ReflectiveChromosomeFactory.forClass(this.getClass());
+    }
 
-        //Use the new constructor to create a new instance using the parameters passed in
-        Object o = subClass.cast(intConstr.newInstance(parameters));
-        
-        //check that the object created is an instance of Chromosome
-        if (o instanceof Chromosome){
-            //if it is (and it should always be) cast the object and return it
-            return (Chromosome) o;
-        }else{
-            //otherwise throw and InstantiationException!
-            throw new InstantiationException("Cast failed.");
+    /**
+     * Returns a key identifying the content of this Chromosome's genes.
+     * 
+     * @param copy if true the genes are copied so the key is not affected 
+     * by any later change to this Chromosome, otherwise the key refers to 
+     * the genes directly and is only valid while they are unchanged.
+     * @return a key for the genes of this Chromosome
+     */
+    GenomeKey genomeKey(boolean copy){
+        ArrayList<Gene> key = genes;
+        if ( copy ){
+            key = new ArrayList<Gene>(genes.size());
+            for (Gene g : genes) {
+                key.add(g.clone());
+            }
         }
-        
+        return new GenomeKey(key, key.hashCode());
     }
 
     @Override
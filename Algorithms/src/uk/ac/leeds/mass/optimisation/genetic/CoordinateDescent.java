@@ -0,0 +1,141 @@
+/**
+ * Local search for numeric genomes that moves one value at a time.  Each 
+ * value in turn is stepped up and then down, keeping the move if it is 
+ * better, and the step for a value is halved each time neither move 
+ * improves it.  The search ends when every step is smaller than the minimum 
+ * or the evaluations run out.  The steps start at a fraction of the range 
+ * between the bounds of each value.
+ * 
+ * Works with a DoubleGenome or IntGenome, for an IntGenome a value is 
+ * finished with once a step of 1 fails.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class CoordinateDescent implements ILocalSearch {
+    
+    private final double initialStep;
+    private final double minimumStep;
+    
+    /**
+     * Creates a CoordinateDescent starting with steps of a tenth of the 
+     * range of each value and stopping at a millionth.
+     */
+    public CoordinateDescent(){
+        this(0.1, 1e-6);
+    }
+    
+    /**
+     * @param initialStep the first step as a fraction of the range between 
+     * the bounds of each value
+     * @param minimumStep the smallest step as a fraction of the range
+     */
+    public CoordinateDescent(double initialStep, double minimumStep){
+        if ( !(initialStep > 0.0 && initialStep <= 1.0) ){
+            throw new IllegalArgumentException("Initial step must be greater than 0 and at most 1: " + initialStep);
+        }
+        if ( !(minimumStep > 0.0 && minimumStep <= initialStep) ){
+            throw new IllegalArgumentException("Minimum step must be greater than 0 and at most the initial step: " + minimumStep);
+        }
+        this.initialStep = initialStep;
+        this.minimumStep = minimumStep;
+    }
+
+    @Override
+    public Chromosome improve(Chromosome start, Neighbourhood neighbourhood) throws Exception {
+        if ( start instanceof DoubleGenome ){
+            return improve((DoubleGenome)start, neighbourhood);
+        }
+        if ( start instanceof IntGenome ){
+            return improve((IntGenome)start, neighbourhood);
+        }
+        throw new IllegalArgumentException("Coordinate descent needs a DoubleGenome or IntGenome, not " + start.getClass().getName());
+    }
+    
+    private Chromosome improve(DoubleGenome start, Neighbourhood neighbourhood) throws InstantiationException{
+        DoubleGenome best = start;
+        double bestFitness = neighbourhood.getFitness(start);
+        int length = best.getLength();
+        double[] steps = new double[length];
+        double[] smallest = new double[length];
+        for (int i = 0; i < length; i++) {
+            double range = best.getUpperBound(i) - best.getLowerBound(i);
+            steps[i] = initialStep * range;
+            smallest[i] = minimumStep * range;
+        }
+        
+        boolean moving = true;
+        while ( moving && neighbourhood.getEvaluationsLeft() > 0 ){
+            moving = false;
+            for (int i = 0; i < length && neighbourhood.getEvaluationsLeft() > 0; i++) {
+                //a value with no range has a step of 0 and is skipped
+                if ( !(steps[i] > smallest[i]) ){continue;}
+                moving = true;
+                boolean improved = false;
+                for (int direction = 1; direction >= -1 && !improved; direction -= 2) {
+                    if ( neighbourhood.getEvaluationsLeft() <= 0 ){break;}
+                    double current = best.getValue(i);
+                    double value = Math.max(best.getLowerBound(i), 
+                            Math.min(best.getUpperBound(i), current + direction * steps[i]));
+                    if ( value == current ){continue;}
+                    DoubleGenome candidate = (DoubleGenome) neighbourhood.neighbour(best);
+                    candidate.setValue(i, value);
+                    double fitness = neighbourhood.evaluate(candidate);
+                    if ( neighbourhood.isBetter(fitness, bestFitness) ){
+                        best = candidate;
+                        bestFitness = fitness;
+                        improved = true;
+                    }
+                }
+                if ( !improved ){
+                    steps[i] *= 0.5;
+                }
+            }
+        }
+        return best;
+    }
+    
+    private Chromosome improve(IntGenome start, Neighbourhood neighbourhood) throws InstantiationException{
+        IntGenome best = start;
+        double bestFitness = neighbourhood.getFitness(start);
+        int length = best.getLength();
+        int[] steps = new int[length];
+        for (int i = 0; i < length; i++) {
+            long range = (long)best.getUpperBound(i) - best.getLowerBound(i);
+            steps[i] = range == 0 ? 0 : (int)Math.max(1L, Math.min(Integer.MAX_VALUE, Math.round(initialStep * range)));
+        }
+        
+        boolean moving = true;
+        while ( moving && neighbourhood.getEvaluationsLeft() > 0 ){
+            moving = false;
+            for (int i = 0; i < length && neighbourhood.getEvaluationsLeft() > 0; i++) {
+                if ( steps[i] == 0 ){continue;}
+                moving = true;
+                boolean improved = false;
+                for (int direction = 1; direction >= -1 && !improved; direction -= 2) {
+                    if ( neighbourhood.getEvaluationsLeft() <= 0 ){break;}
+                    int current = best.getValue(i);
+                    long moved = (long)current + direction * (long)steps[i];
+                    int value = (int)Math.max(best.getLowerBound(i), Math.min(best.getUpperBound(i), moved));
+                    if ( value == current ){continue;}
+                    IntGenome candidate = (IntGenome) neighbourhood.neighbour(best);
+                    candidate.setValue(i, value);
+                    double fitness = neighbourhood.evaluate(candidate);
+                    if ( neighbourhood.isBetter(fitness, bestFitness) ){
+                        best = candidate;
+                        bestFitness = fitness;
+                        improved = true;
+                    }
+                }
+                if ( !improved ){
+                    steps[i] /= 2;
+                }
+            }
+        }
+        return best;
+    }
+    
+}
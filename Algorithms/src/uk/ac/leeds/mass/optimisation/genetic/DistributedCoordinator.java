@@ -0,0 +1,452 @@
+/**
+ * Coordinates an island model genetic algorithm spread over several 
+ * processes, each running a DistributedWorker with its own population.  The 
+ * processes can be on one machine or on several machines that can reach the 
+ * coordinator over TCP, so each population has the whole heap of its own 
+ * JVM for the model being calibrated.
+ * 
+ * The coordinator waits for the expected number of workers to connect and 
+ * sends them the run settings.  Every migration interval each worker sends 
+ * its best Chromosome objects, and once all of them have arrived the 
+ * coordinator sends each worker the migrants from the workers it is 
+ * connected to by the topology.  At the end of the run every worker reports 
+ * its best Chromosome and the coordinator keeps the best of these.  A worker 
+ * that stops early, because one of its termination conditions is satisfied, 
+ * it is cancelled or it hits an error, reports its best Chromosome at that 
+ * point and takes no further part in migration.  A worker that disconnects, 
+ * sends a message that is not the one expected or sends nothing within the 
+ * read timeout is dropped and the rest carry on.  Every worker must 
+ * calibrate in the same direction as the first to connect.
+ * 
+ * The coordinator only listens on the loopback address unless it is given 
+ * the address to listen on, so by default only workers on the same machine 
+ * can connect.  Messages use Java serialization, read through a filter that 
+ * only allows the classes a message is made of, but the coordinator should 
+ * still only be opened up on a trusted network.
+ * 
+ * Both classes have a main method so a run can be started from the 
+ * command line, for example on one machine:
+ * 
+ *   java uk.ac.leeds.mass.optimisation.genetic.DistributedCoordinator 5000 4 200
+ *   java uk.ac.leeds.mass.optimisation.genetic.DistributedWorker localhost 5000 my.ModelChromosome
+ *   (and three more workers)
+ * 
+ * or with the distributed-local.sh script in the scripts folder.  To take 
+ * workers from other machines give the address to listen on with the port, 
+ * such as 0.0.0.0:5000.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class DistributedCoordinator implements Runnable{
+    
+    private final ServerSocket serverSocket;
+    private final int workerCount;
+    
+    private int generations = 200;
+    private int migrationInterval = 10;
+    private int migrationSize = 2;
+    private int topology = IslandModel.TOPOLOGY_RING;
+    private int readTimeout = 600000;
+    
+    private final List<IErrorListener> errorListeners = new ArrayList<IErrorListener>();
+    
+    //the best result reported by the workers
+    private volatile DistributedMessage.Migrant best = null;
+    //set by the first worker to connect
+    private Boolean calibrateToLessThan = null;
+    
+    /**
+     * Creates a coordinator listening on the given port of the loopback 
+     * address, so only workers on the same machine can connect.  The port 
+     * is opened straight away so workers can connect as soon as run is 
+     * called.
+     * 
+     * @param port the port to listen on, 0 to use any free port
+     * @param workerCount the number of workers to wait for
+     * @throws IOException if the port cannot be opened
+     */
+    public DistributedCoordinator(int port, int workerCount) throws IOException{
+        this(InetAddress.getLoopbackAddress(), port, workerCount);
+    }
+    
+    /**
+     * Creates a coordinator listening on the given address and port.  The 
+     * port is opened straight away so workers can connect as soon as run is 
+     * called.
+     * 
+     * @param address the address to listen on, the wildcard address to 
+     * listen on every network interface
+     * @param port the port to listen on, 0 to use any free port
+     * @param workerCount the number of workers to wait for
+     * @throws IOException if the port cannot be opened
+     */
+    public DistributedCoordinator(InetAddress address, int port, int workerCount) throws IOException{
+        if ( workerCount < 1 ){
+            throw new IllegalArgumentException("There must be at least one worker: " + workerCount);
+        }
+        this.serverSocket = new ServerSocket(port, 50, address);
+        this.workerCount = workerCount;
+    }
+    
+    /**
+     * Waits for the workers to connect and coordinates the run until every 
+     * worker has finished.  Errors are reported through the IErrorListeners 
+     * if they are present else through the default logging stream.
+     */
+    @Override
+    public void run(){
+        List<Connection> workers = new ArrayList<Connection>();
+        calibrateToLessThan = null;
+        best = null;
+        try{
+            //wait for all of the workers before starting
+            while ( workers.size() < workerCount ){
+                Connection worker = new Connection(serverSocket.accept());
+                DistributedMessage hello = worker.read(DistributedMessage.HELLO, 0);
+                if ( hello == null ){continue;}
+                if ( calibrateToLessThan == null ){
+                    calibrateToLessThan = hello.calibrateToLessThan;
+                }else if ( calibrateToLessThan != hello.calibrateToLessThan ){
+                    worker.disconnected(new IOException("Worker calibrates to " 
+                            + (hello.calibrateToLessThan ? "less" : "greater") + " than, unlike the first worker"));
+                    continue;
+                }
+                workers.add(worker);
+            }
+            
+            for (int i = 0; i < workers.size(); i++) {
+                DistributedMessage settings = new DistributedMessage(DistributedMessage.SETTINGS);
+                settings.workerIndex = i;
+                settings.workerCount = workers.size();
+                settings.generations = generations;
+                settings.migrationInterval = migrationInterval;
+                settings.migrationSize = migrationSize;
+                workers.get(i).write(settings);
+            }
+            
+            //the workers migrate after every full interval of generations
+            int migrations = generations / migrationInterval;
+            for (int m = 0; m < migrations; m++) {
+                List<ArrayList<DistributedMessage.Migrant>> outgoing = new ArrayList<ArrayList<DistributedMessage.Migrant>>();
+                for (Connection worker : workers) {
+                    DistributedMessage message = worker.read(DistributedMessage.MIGRANTS, migrationSize);
+                    outgoing.add(message == null ? null : message.migrants);
+                }
+                for (int target = 0; target < workers.size(); target++) {
+                    if ( outgoing.get(target) == null ){continue;}
+                    DistributedMessage reply = new DistributedMessage(DistributedMessage.MIGRANTS);
+                    for (int source = 0; source < workers.size(); source++) {
+                        if ( source == target || outgoing.get(source) == null ){continue;}
+                        if ( topology == IslandModel.TOPOLOGY_RING && target != nextLive(outgoing, source) ){continue;}
+                        reply.migrants.addAll(outgoing.get(source));
+                    }
+                    workers.get(target).write(reply);
+                }
+            }
+            
+            //collect the final results of the workers still running, the 
+            //result is kept by the connection as it is read
+            for (Connection worker : workers) {
+                worker.read(DistributedMessage.FINISHED, 1);
+            }
+            
+        }catch(IOException e){
+            reportError(e);
+        }finally{
+            for (Connection worker : workers) {
+                worker.close();
+            }
+            try{
+                serverSocket.close();
+            }catch(IOException e){
+                reportError(e);
+            }
+        }
+    }
+    
+    //the next worker after source in the ring that is still connected
+    private int nextLive(List<ArrayList<DistributedMessage.Migrant>> outgoing, int source){
+        int n = outgoing.size();
+        for (int i = 1; i < n; i++) {
+            int target = (source + i) % n;
+            if ( outgoing.get(target) != null ){return target;}
+        }
+        return source;
+    }
+    
+    //keeps the result of a worker if it is the best so far, NaN is always 
+    //worst
+    private void offer(DistributedMessage.Migrant candidate){
+        DistributedMessage.Migrant current = best;
+        if ( current == null || GeneticAlgorithm.isBetter(candidate.fitness, current.fitness, calibrateToLessThan) ){
+            best = candidate;
+        }
+    }
+    
+    /**
+     * @return the port the coordinator is listening on
+     */
+    public int getPort(){
+        return serverSocket.getLocalPort();
+    }
+    
+    /**
+     * @return the best fitness reported by the workers, NaN if the run has 
+     * not finished
+     */
+    public double getBestFitness(){
+        DistributedMessage.Migrant b = best;
+        return b == null ? Double.NaN : b.fitness;
+    }
+    
+    /**
+     * @return a description of the best Chromosome reported by the workers 
+     * or null if the run has not finished
+     */
+    public String getBestDescription(){
+        DistributedMessage.Migrant b = best;
+        return b == null ? null : b.description;
+    }
+    
+    /**
+     * Recreates the best Chromosome reported by the workers.
+     * 
+     * @param ga the GeneticAlgorithm the Chromosome should belong to, 
+     * created with a Chromosome of the class being optimised
+     * @return the best Chromosome or null if the run has not finished
+     * @throws InstantiationException if the Chromosome cannot be created
+     */
+    public Chromosome getBestChromosome(GeneticAlgorithm ga) throws InstantiationException{
+        DistributedMessage.Migrant b = best;
+        return b == null ? null : b.toChromosome(ga, ga.getChromosome());
+    }
+
+    /**
+     * @return the generations
+     */
+    public int getGenerations() {
+        return generations;
+    }
+
+    /**
+     * @param generations the generations each worker runs for
+     */
+    public void setGenerations(int generations) {
+        this.generations = generations;
+    }
+
+    /**
+     * @return the number of generations between migrations
+     */
+    public int getMigrationInterval() {
+        return migrationInterval;
+    }
+
+    /**
+     * @param migrationInterval the number of generations between migrations
+     */
+    public void setMigrationInterval(int migrationInterval) {
+        if ( migrationInterval < 1 ){
+            throw new IllegalArgumentException("Migration interval must be at least 1: " + migrationInterval);
+        }
+        this.migrationInterval = migrationInterval;
+    }
+
+    /**
+     * @return the number of Chromosome objects each worker sends at each migration
+     */
+    public int getMigrationSize() {
+        return migrationSize;
+    }
+
+    /**
+     * @param migrationSize the number of Chromosome objects each worker 
+     * sends at each migration
+     */
+    public void setMigrationSize(int migrationSize) {
+        this.migrationSize = migrationSize;
+    }
+
+    /**
+     * @return the topology, one of the IslandModel TOPOLOGY constants
+     */
+    public int getTopology() {
+        return topology;
+    }
+
+    /**
+     * @param topology the topology to set, one of the IslandModel TOPOLOGY constants
+     */
+    public void setTopology(int topology) {
+        if ( topology != IslandModel.TOPOLOGY_RING && topology != IslandModel.TOPOLOGY_FULLY_CONNECTED ){
+            throw new IllegalArgumentException("Unknown topology: " + topology);
+        }
+        this.topology = topology;
+    }
+    
+    /**
+     * @return the milliseconds to wait for a message from a worker
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Sets how long to wait for a message from a worker before dropping it.  
+     * This must allow for the slowest worker to run a migration interval of 
+     * generations.
+     * 
+     * @param readTimeout the milliseconds to wait, 0 to wait for ever
+     */
+    public void setReadTimeout(int readTimeout) {
+        if ( readTimeout < 0 ){
+            throw new IllegalArgumentException("Read timeout cannot be negative: " + readTimeout);
+        }
+        this.readTimeout = readTimeout;
+    }
+    
+    private void reportError(Exception e){
+        if ( errorListeners.isEmpty() ){
+            Logger.getGlobal().log(Level.SEVERE, e.getMessage());
+        }else{
+            for (IErrorListener listener : errorListeners) {
+                listener.catchError(e);
+            }
+        }
+    }
+    
+    public void addErrorListener(IErrorListener listener){
+        this.errorListeners.add(listener);
+    }
+    
+    public void removeErrorListener(IErrorListener listener){
+        this.errorListeners.remove(listener);
+    }
+    
+    /**
+     * A connection to one worker.  Once a read or write fails, or a message 
+     * is not the one expected, the worker is treated as disconnected and 
+     * every later read returns null.  Once connected the worker may send 
+     * its final result in place of any message, which is kept and the 
+     * worker treated as finished in the same way.
+     */
+    private class Connection{
+        
+        private final Socket socket;
+        private ObjectOutputStream out = null;
+        private ObjectInputStream in = null;
+        private boolean connected = true;
+        
+        Connection(Socket socket){
+            this.socket = socket;
+            try{
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(readTimeout);
+                out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                out.flush();
+                in = DistributedMessage.input(socket.getInputStream());
+            }catch(IOException e){
+                disconnected(e);
+            }
+        }
+        
+        /**
+         * @param type the type of message expected
+         * @param maxMigrants the largest number of migrants it can hold
+         * @return the message or null if the worker is disconnected or has 
+         * finished
+         */
+        DistributedMessage read(int type, int maxMigrants){
+            if ( !connected ){return null;}
+            try{
+                Object message = in.readObject();
+                if ( type != DistributedMessage.HELLO && message instanceof DistributedMessage 
+                        && ((DistributedMessage)message).type == DistributedMessage.FINISHED ){
+                    DistributedMessage finished = DistributedMessage.check(message, DistributedMessage.FINISHED, 1);
+                    if ( !finished.migrants.isEmpty() ){
+                        offer(finished.migrants.get(0));
+                    }
+                    connected = false;
+                    close();
+                    return null;
+                }
+                return DistributedMessage.check(message, type, maxMigrants);
+            }catch(IOException e){
+                disconnected(e);
+            }catch(ClassNotFoundException e){
+                disconnected(e);
+            }
+            return null;
+        }
+        
+        void write(DistributedMessage message){
+            if ( !connected ){return;}
+            try{
+                out.writeObject(message);
+                //forget the objects written so the stream does not hold them
+                out.reset();
+                out.flush();
+            }catch(IOException e){
+                disconnected(e);
+            }
+        }
+        
+        void disconnected(Exception e){
+            connected = false;
+            reportError(e);
+            close();
+        }
+        
+        void close(){
+            try{
+                socket.close();
+            }catch(IOException e){
+                //already closed
+            }
+        }
+    }
+    
+    /**
+     * Runs a coordinator from the command line and prints the best result.
+     * 
+     * @param args port (optionally preceded by the address to listen on and 
+     * a colon), number of workers, generations and optionally the 
+     * migration interval, migration size and topology (ring or full)
+     * @throws IOException if the port cannot be opened
+     */
+    public static void main(String[] args) throws IOException{
+        if ( args.length < 3 ){
+            System.err.println("Usage: DistributedCoordinator [address:]port workers generations [interval] [size] [ring|full]");
+            System.exit(1);
+        }
+        int colon = args[0].lastIndexOf(':');
+        InetAddress address = colon < 0 ? InetAddress.getLoopbackAddress() 
+                : InetAddress.getByName(args[0].substring(0, colon));
+        DistributedCoordinator coordinator = new DistributedCoordinator(address, 
+                Integer.parseInt(args[0].substring(colon + 1)), Integer.parseInt(args[1]));
+        coordinator.setGenerations(Integer.parseInt(args[2]));
+        if ( args.length > 3 ){coordinator.setMigrationInterval(Integer.parseInt(args[3]));}
+        if ( args.length > 4 ){coordinator.setMigrationSize(Integer.parseInt(args[4]));}
+        if ( args.length > 5 && args[5].equals("full") ){coordinator.setTopology(IslandModel.TOPOLOGY_FULLY_CONNECTED);}
+        System.out.println("Listening on port " + coordinator.getPort());
+        coordinator.run();
+        System.out.println(coordinator.getBestDescription());
+    }
+    
+}
@@ -0,0 +1,161 @@
+/**
+ * Message passed between a DistributedCoordinator and its DistributedWorker 
+ * processes.  Messages are written with Java serialization over the socket 
+ * so the Gene sub classes of the Chromosome being optimised must implement 
+ * Serializable.
+ * 
+ * Messages are only read through a stream created by input, which filters 
+ * out every class other than those a message is made of: the message 
+ * itself, the migrants, arrays of primitives, strings, boxed numbers and 
+ * Gene sub classes.  Anything else ends the connection before it is 
+ * created, so a stranger connecting to the port cannot use the message to 
+ * run code.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class DistributedMessage implements Serializable{
+    
+    private static final long serialVersionUID = 1L;
+    
+    //worker to coordinator on connecting
+    static final int HELLO = 0;
+    //coordinator to worker in reply to HELLO
+    static final int SETTINGS = 1;
+    //both ways at each migration
+    static final int MIGRANTS = 2;
+    //worker to coordinator at the end of the run
+    static final int FINISHED = 3;
+    
+    final int type;
+    
+    //HELLO
+    boolean calibrateToLessThan;
+    
+    //SETTINGS
+    int workerIndex;
+    int workerCount;
+    int generations;
+    int migrationInterval;
+    int migrationSize;
+    
+    //MIGRANTS and FINISHED, the best first
+    ArrayList<Migrant> migrants = new ArrayList<Migrant>();
+    
+    //limits on the size of a message, well beyond any real genome
+    private static final long MAX_DEPTH = 20;
+    private static final long MAX_REFERENCES = 1000000;
+    private static final long MAX_ARRAY_LENGTH = 1 << 26;
+    
+    private static final ObjectInputFilter FILTER = new ObjectInputFilter(){
+        @Override
+        public Status checkInput(FilterInfo info) {
+            if ( info.depth() > MAX_DEPTH || info.references() > MAX_REFERENCES 
+                    || info.arrayLength() > MAX_ARRAY_LENGTH ){
+                return Status.REJECTED;
+            }
+            Class<?> c = info.serialClass();
+            return c == null || allowed(c) ? Status.ALLOWED : Status.REJECTED;
+        }
+    };
+    
+    DistributedMessage(int type){
+        this.type = type;
+    }
+    
+    //the classes a message can be made of
+    private static boolean allowed(Class<?> c){
+        while ( c.isArray() ){
+            c = c.getComponentType();
+        }
+        return c.isPrimitive() || c == Object.class || c == String.class || c == ArrayList.class 
+                || c == DistributedMessage.class || c == Migrant.class 
+                || c == Boolean.class || c == Character.class 
+                || (Number.class.isAssignableFrom(c) && c.getName().startsWith("java.lang."))
+                || Gene.class.isAssignableFrom(c);
+    }
+    
+    /**
+     * Creates the stream to read messages from.  Reading a message that 
+     * holds any other class throws an InvalidClassException.
+     * 
+     * @param in the stream from the socket
+     * @return the filtered stream
+     * @throws IOException if the stream header cannot be read
+     */
+    static ObjectInputStream input(InputStream in) throws IOException{
+        ObjectInputStream stream = new ObjectInputStream(new BufferedInputStream(in));
+        stream.setObjectInputFilter(FILTER);
+        return stream;
+    }
+    
+    /**
+     * Checks a message read from the other end of a connection.
+     * 
+     * @param message the message read
+     * @param expected the type of message expected
+     * @param maxMigrants the largest number of migrants it can hold
+     * @return the message
+     * @throws IOException if the message is not what was expected
+     */
+    static DistributedMessage check(Object message, int expected, int maxMigrants) throws IOException{
+        if ( !(message instanceof DistributedMessage) ){
+            throw new IOException("Expected a message but read " + (message == null ? null : message.getClass().getName()));
+        }
+        DistributedMessage m = (DistributedMessage)message;
+        if ( m.type != expected ){
+            throw new IOException("Expected message type " + expected + " but read " + m.type);
+        }
+        if ( m.migrants == null || m.migrants.size() > maxMigrants ){
+            throw new IOException("Message of type " + m.type + " holds too many migrants");
+        }
+        for (Migrant migrant : m.migrants) {
+            if ( migrant == null || migrant.genome == null ){
+                throw new IOException("Message of type " + m.type + " holds an empty migrant");
+            }
+        }
+        return m;
+    }
+    
+    /**
+     * The genome and fitness of a Chromosome sent between processes.
+     */
+    static final class Migrant implements Serializable{
+        
+        private static final long serialVersionUID = 1L;
+        
+        final Serializable genome;
+        final double fitness;
+        final String description;
+        
+        Migrant(Chromosome c){
+            this.genome = c.exportGenome();
+            this.fitness = c.getFitness();
+            this.description = c.toString();
+        }
+        
+        /**
+         * @param owner the GeneticAlgorithm to add the migrant to
+         * @param prototype a Chromosome of the class being optimised
+         * @return a Chromosome holding this migrant's genes and fitness
+         * @throws InstantiationException if the Chromosome cannot be created
+         */
+        Chromosome toChromosome(GeneticAlgorithm owner, Chromosome prototype) throws InstantiationException{
+            Chromosome c = prototype.importGenome(owner, genome);
+            c.setFitness(fitness);
+            return c;
+        }
+    }
+    
+}
@@ -0,0 +1,215 @@
+/**
+ * Runs one population of a distributed island model genetic algorithm and 
+ * exchanges migrants with a DistributedCoordinator over TCP.  The number of 
+ * generations and the migration settings are sent by the coordinator, 
+ * everything else (population sizes, mutation rate, IGOF, parallelism, 
+ * termination conditions and so on) is taken from the GeneticAlgorithm 
+ * given to the worker.  The GeneticAlgorithm cannot run in steady state 
+ * mode, write checkpoints or carry on from a checkpoint.
+ * 
+ * A worker whose termination conditions are satisfied, or that is 
+ * cancelled or stopped by an error, sends its best Chromosome to the 
+ * coordinator straight away and takes no further part in migration.  
+ * Pausing a worker holds up the others at the next migration, for no 
+ * longer than the read timeout of the coordinator.  If the connection to 
+ * the coordinator is lost the error is reported and the worker finishes its 
+ * run on its own.
+ * 
+ * This class implements the runnable interface and can be run as a separate 
+ * thread, or as a separate process using the main method.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class DistributedWorker implements Runnable{
+    
+    private final GeneticAlgorithm ga;
+    private final String host;
+    private final int port;
+    
+    private Socket socket = null;
+    private ObjectOutputStream out = null;
+    private ObjectInputStream in = null;
+    
+    /**
+     * @param ga the GeneticAlgorithm holding this worker's population
+     * @param host the host the coordinator is running on
+     * @param port the port the coordinator is listening on
+     */
+    public DistributedWorker(GeneticAlgorithm ga, String host, int port){
+        this.ga = ga;
+        this.host = host;
+        this.port = port;
+    }
+    
+    /**
+     * Connects to the coordinator and runs the population for the number of 
+     * generations set by the coordinator.  The generations setting of the 
+     * GeneticAlgorithm is put back afterwards.  Errors are reported through 
+     * the IErrorListeners of the GeneticAlgorithm.
+     * 
+     * @throws IllegalStateException if the GeneticAlgorithm is set to run in 
+     * steady state mode, write checkpoints or carry on from a checkpoint
+     */
+    @Override
+    public void run(){
+        if ( ga.isSteadyState() ){
+            throw new IllegalStateException("A distributed worker cannot run in steady state mode");
+        }
+        if ( ga.getCheckpointFile() != null || ga.isResuming() ){
+            throw new IllegalStateException("A distributed worker cannot use checkpoints");
+        }
+        DistributedMessage settings = null;
+        try{
+            connect();
+            DistributedMessage hello = new DistributedMessage(DistributedMessage.HELLO);
+            hello.calibrateToLessThan = ga.getGof().calibrateToLessThan();
+            write(hello);
+            settings = read(DistributedMessage.SETTINGS, 0);
+        }catch(IOException e){
+            ga.reportError(e);
+            disconnect();
+            return;
+        }
+        
+        int ownGenerations = ga.getGenerations();
+        int generations = settings.generations;
+        ga.setGenerations(generations);
+        boolean ok = false;
+        ga.startRun();
+        try{
+            if ( ga.createInitialPopulation() ){
+                ok = true;
+                for (int i = 0; i < generations + 1 && ok; i++) {
+                    ok = ga.awaitResume() && ga.evaluateAndSelect();
+                    if ( ok && i < generations ){
+                        if ( ga.isTerminated() ){break;}
+                        ok = ga.breedCandidatePopulation();
+                        if ( ok && (i + 1) % settings.migrationInterval == 0 ){
+                            migrate(settings.migrationSize, settings.workerCount);
+                        }
+                    }
+                }
+            }
+            
+            //report the best result, which also tells the coordinator if 
+            //this worker has stopped early
+            if ( socket != null ){
+                DistributedMessage finished = new DistributedMessage(DistributedMessage.FINISHED);
+                Chromosome best = ga.bestOf(ga.getBreedPopulation());
+                if ( best != null ){
+                    finished.migrants.add(new DistributedMessage.Migrant(best));
+                }
+                write(finished);
+            }
+        }catch(IOException e){
+            ga.reportError(e);
+        }finally{
+            ga.recordTermination(ok);
+            ga.finishRun();
+            ga.setGenerations(ownGenerations);
+            disconnect();
+        }
+    }
+    
+    /**
+     * Sends the best of the breed population to the coordinator and adds the 
+     * migrants sent back to the candidate population.
+     */
+    private void migrate(int migrationSize, int workerCount){
+        if ( socket == null ){return;}
+        try{
+            List<Chromosome> elite = ga.getBreedPopulation();
+            DistributedMessage outgoing = new DistributedMessage(DistributedMessage.MIGRANTS);
+            for (int i = 0; i < Math.min(migrationSize, elite.size()); i++) {
+                outgoing.migrants.add(new DistributedMessage.Migrant(elite.get(i)));
+            }
+            write(outgoing);
+            
+            //at most the migrants of every other worker
+            DistributedMessage incoming = read(DistributedMessage.MIGRANTS, 
+                    migrationSize * Math.max(0, workerCount - 1));
+            for (DistributedMessage.Migrant migrant : incoming.migrants) {
+                ga.getCandidatePopulation().add(migrant.toChromosome(ga, ga.getChromosome()));
+            }
+        }catch(IOException e){
+            //carry on without the coordinator
+            ga.reportError(e);
+            disconnect();
+        }catch(InstantiationException e){
+            ga.reportError(e);
+        }
+    }
+    
+    private void connect() throws IOException{
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        out.flush();
+        in = DistributedMessage.input(socket.getInputStream());
+    }
+    
+    private void write(DistributedMessage message) throws IOException{
+        out.writeObject(message);
+        //forget the objects written so the stream does not hold them
+        out.reset();
+        out.flush();
+    }
+    
+    private DistributedMessage read(int type, int maxMigrants) throws IOException{
+        try{
+            return DistributedMessage.check(in.readObject(), type, maxMigrants);
+        }catch(ClassNotFoundException e){
+            throw new IOException("Unexpected message from coordinator", e);
+        }
+    }
+    
+    private void disconnect(){
+        if ( socket != null ){
+            try{
+                socket.close();
+            }catch(IOException e){
+                //already closed
+            }
+            socket = null;
+        }
+    }
+    
+    /**
+     * @return the GeneticAlgorithm holding this worker's population
+     */
+    public GeneticAlgorithm getGeneticAlgorithm(){
+        return ga;
+    }
+    
+    /**
+     * Runs a worker from the command line.  The Chromosome class must have 
+     * a constructor with no parameters.
+     * 
+     * @param args host, port, the name of the Chromosome class to optimise 
+     * and optionally the seed
+     * @throws Exception if the Chromosome class cannot be created
+     */
+    public static void main(String[] args) throws Exception{
+        if ( args.length < 3 ){
+            System.err.println("Usage: DistributedWorker host port chromosomeClass [seed]");
+            System.exit(1);
+        }
+        Chromosome chromosome = (Chromosome) Class.forName(args[2]).getDeclaredConstructor().newInstance();
+        GeneticAlgorithm ga = args.length > 3 
+                ? new GeneticAlgorithm(chromosome, Long.parseLong(args[3])) 
+                : new GeneticAlgorithm(chromosome);
+        new DistributedWorker(ga, args[0], Integer.parseInt(args[1])).run();
+    }
+    
+}
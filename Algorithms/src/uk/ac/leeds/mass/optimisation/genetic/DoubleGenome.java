@@ -0,0 +1,263 @@
+/**
+ * Chromosome holding its genes as a flat array of double values, each with 
+ * its own lower and upper bound.  Breeding and mutation work directly on the 
+ * arrays so no Gene objects are created, which makes this the class to 
+ * extend for calibrations with a large number of real valued parameters.
+ * 
+ * Extend this class, pass the bounds to one of the constructors and 
+ * implement calculateFitness using getValues.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ *
+ * @author kirkharland
+ */
+public abstract class DoubleGenome extends Chromosome {
+    
+    private double[] values = null;
+    
+    //the bounds are shared by every member of the population
+    private double[] lowerBounds = null;
+    private double[] upperBounds = null;
+    
+    protected DoubleGenome(){}
+    
+    protected DoubleGenome(GeneticAlgorithm parent){
+        super(parent);
+    }
+    
+    /**
+     * Creates a DoubleGenome where every value has the same bounds.
+     * 
+     * @param length the number of values in the genome
+     * @param lowerBound the smallest value allowed
+     * @param upperBound the largest value allowed
+     */
+    protected DoubleGenome(int length, double lowerBound, double upperBound){
+        this(fill(length, lowerBound), fill(length, upperBound));
+    }
+    
+    /**
+     * Creates a DoubleGenome with separate bounds for each value.
+     * 
+     * @param lowerBounds the smallest value allowed for each value
+     * @param upperBounds the largest value allowed for each value
+     */
+    protected DoubleGenome(double[] lowerBounds, double[] upperBounds){
+        if ( lowerBounds.length != upperBounds.length ){
+            throw new IllegalArgumentException("Bounds must be the same length.");
+        }
+        for (int i = 0; i < lowerBounds.length; i++) {
+            if ( lowerBounds[i] > upperBounds[i] ){
+                throw new IllegalArgumentException("Lower bound greater than upper bound at " + i);
+            }
+        }
+        this.lowerBounds = lowerBounds.clone();
+        this.upperBounds = upperBounds.clone();
+        this.values = new double[lowerBounds.length];
+    }
+    
+    private static double[] fill(int length, double value){
+        double[] d = new double[length];
+        Arrays.fill(d, value);
+        return d;
+    }
+
+    @Override
+    protected void initialiseFrom(Chromosome template) {
+        DoubleGenome t = (DoubleGenome) template;
+        lowerBounds = t.lowerBounds;
+        upperBounds = t.upperBounds;
+        if ( values == null || values.length != lowerBounds.length ){
+            values = new double[lowerBounds.length];
+        }
+    }
+    
+    /**
+     * Populates the values with random numbers between the bounds.
+     * Override to start the population from somewhere else.
+     */
+    @Override
+    protected void populateGenes() {
+        Random random = getParent().getRandom();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = lowerBounds[i] + random.nextDouble() * (upperBounds[i] - lowerBounds[i]);
+        }
+    }
+    
+    /**
+     * Uniform crossover, each value is taken from one or other of the 
+     * parents.  The random bits for 64 values are drawn at once.
+     */
+    @Override
+    Chromosome breed(Chromosome partner, Chromosome spare) throws InstantiationException {
+        double[] other = ((DoubleGenome) partner).values;
+        if ( other.length != values.length ){
+            throw new IllegalArgumentException("Cannot breed genomes of length " + values.length + " and " + other.length);
+        }
+        DoubleGenome child = (DoubleGenome) newOffspring(spare);
+        double[] bred = child.values;
+        Random random = getParent().getRandom();
+        boolean track = getParent().isIncremental();
+        if ( track ){
+            child.trackChangesFrom(this);
+        }
+        long mask = 0;
+        for (int i = 0; i < bred.length; i++) {
+            if ( (i & 63) == 0 ){mask = random.nextLong();}
+            if ( (mask & (1L << (i & 63))) != 0 ){
+                bred[i] = values[i];
+            }else{
+                bred[i] = other[i];
+                if ( track && Double.doubleToLongBits(other[i]) != Double.doubleToLongBits(values[i]) ){
+                    child.geneChanged(i);
+                }
+            }
+        }
+        return child;
+    }
+    
+    @Override
+    Chromosome copyTo(GeneticAlgorithm owner) throws InstantiationException {
+        DoubleGenome copy = (DoubleGenome) newInstance(owner);
+        System.arraycopy(values, 0, copy.values, 0, values.length);
+        copy.copyFitness(this);
+        return copy;
+    }
+    
+    @Override
+    Serializable exportGenome() {
+        return values.clone();
+    }
+
+    @Override
+    Chromosome importGenome(GeneticAlgorithm owner, Object genome) throws InstantiationException {
+        double[] imported = (double[]) genome;
+        if ( imported.length != values.length ){
+            throw new IllegalArgumentException("Cannot import genome of length " + imported.length);
+        }
+        DoubleGenome chromosome = (DoubleGenome) newInstance(owner);
+        System.arraycopy(imported, 0, chromosome.values, 0, imported.length);
+        return chromosome;
+    }
+    
+    /**
+     * Randomly picks a value and mutates it.
+     */
+    @Override
+    public void mutate() {
+        if ( values.length > 0 ){
+            Random random = getParent().getRandom();
+            int index = random.nextInt(values.length);
+            mutateValue(index, random);
+            geneChanged(index);
+        }
+    }
+    
+    /**
+     * Mutates a single value, by default the value is replaced with a 
+     * random number between its bounds.  Override for a different mutation 
+     * operator, the new value must stay within the bounds.
+     * 
+     * @param index the index of the value to mutate
+     * @param random the random number generator to use
+     */
+    protected void mutateValue(int index, Random random){
+        values[index] = lowerBounds[index] + random.nextDouble() * (upperBounds[index] - lowerBounds[index]);
+    }
+    
+    /**
+     * Returns the values of this genome.  The array is returned directly 
+     * for speed and must not be modified once the fitness has been 
+     * calculated.
+     * 
+     * @return the values of this genome
+     */
+    public double[] getValues(){
+        return values;
+    }
+    
+    /**
+     * @return a copy of the values of this genome
+     */
+    @Override
+    public double[] getGenomeVector(){
+        return values.clone();
+    }
+    
+    /**
+     * @param index the index of the value
+     * @return the value at the index
+     */
+    public double getValue(int index){
+        return values[index];
+    }
+    
+    /**
+     * @param index the index of the value
+     * @param value the value to set, it is not checked against the bounds
+     */
+    protected void setValue(int index, double value){
+        values[index] = value;
+        geneChanged(index);
+    }
+    
+    /**
+     * @return the number of values in this genome
+     */
+    public int getLength(){
+        return values.length;
+    }
+    
+    /**
+     * @param index the index of the value
+     * @return the smallest value allowed at the index
+     */
+    public double getLowerBound(int index){
+        return lowerBounds[index];
+    }
+    
+    /**
+     * @param index the index of the value
+     * @return the largest value allowed at the index
+     */
+    public double getUpperBound(int index){
+        return upperBounds[index];
+    }
+    
+    @Override
+    public String toString(){
+        StringBuilder s = new StringBuilder("Genes: ");
+        for (int i = 0; i < values.length; i++) {
+            s.append(values[i]).append(' ');
+        }
+        s.append("Fitness: ").append(getFitness());
+        return s.toString();
+    }
+    
+    @Override
+    public boolean equals(Object o){
+        if ( o instanceof DoubleGenome ){
+            return Arrays.equals(values, ((DoubleGenome)o).values);
+        }
+        return false;
+    }
+
+    @Override
+    GenomeKey genomeKey(boolean copy) {
+        return new GenomeKey(copy ? values.clone() : values, Arrays.hashCode(values));
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 5;
+        hash = 47 * hash + Arrays.hashCode(values);
+        return hash;
+    }
+    
+}
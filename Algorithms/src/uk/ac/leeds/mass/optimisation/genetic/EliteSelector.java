@@ -0,0 +1,46 @@
+/**
+ * Selects the best distinct Chromosome objects from a candidate population.
+ * The candidates are offered in turn to a SelectionHeap holding the best 
+ * seen so far, so selecting k elites from n candidates costs O(n log k) 
+ * rather than a full sort and only those that beat the worst elite are 
+ * checked for duplicates.
+ * 
+ * The result is the same as a stable sort of the candidates followed by 
+ * taking the first k distinct members: ties in fitness are broken by the 
+ * position in the candidate list.  A fitness of NaN is always ranked last.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.List;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class EliteSelector {
+    
+    //reused between generations while the number to select is the same
+    private SelectionHeap<Chromosome> heap = new SelectionHeap<Chromosome>(0);
+    
+    /**
+     * Selects the best distinct candidates.
+     * 
+     * @param candidates the evaluated Chromosome objects to select from
+     * @param ascending true if smaller fitness values are better
+     * @param count the maximum number of Chromosome objects to select
+     * @param elite the list to add the selected Chromosome objects to, best first
+     */
+    void select(List<Chromosome> candidates, boolean ascending, int count, List<Chromosome> elite){
+        int n = candidates.size();
+        int capacity = Math.max(0, Math.min(count - elite.size(), n));
+        if ( heap.getCapacity() != capacity ){
+            heap = new SelectionHeap<Chromosome>(capacity);
+        }
+        for (int i = 0; i < n; i++) {
+            Chromosome c = candidates.get(i);
+            heap.offer(c, SelectionHeap.key(c.getFitness(), ascending), i);
+        }
+        elite.addAll(heap.drain());
+    }
+    
+}
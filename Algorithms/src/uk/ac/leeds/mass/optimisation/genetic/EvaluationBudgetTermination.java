@@ -0,0 +1,37 @@
+/**
+ * Stops the run once a set number of fitness calculations have been made.  
+ * Fitness values found in the fitness cache are not counted.  The count is 
+ * checked at the end of each generation so the run can go over the budget 
+ * by up to one generation.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class EvaluationBudgetTermination implements ITerminationCondition{
+    
+    private final long budget;
+    
+    /**
+     * @param budget the number of fitness calculations the run is allowed
+     */
+    public EvaluationBudgetTermination(long budget){
+        this.budget = budget;
+    }
+
+    @Override
+    public void reset() {}
+
+    @Override
+    public boolean isSatisfied(GeneticAlgorithm ga, GenerationStatistics statistics) {
+        return ga.getEvaluationCount() >= budget;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Evaluation budget of " + budget + " used";
+    }
+    
+}
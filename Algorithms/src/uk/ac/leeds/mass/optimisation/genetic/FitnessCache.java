@@ -0,0 +1,121 @@
+/**
+ * Bounded cache of fitness values keyed by the content of the genome.  Once 
+ * the cache is full the least recently used entry is evicted.  The cache is 
+ * safe to use from several evaluation threads at once and counts the hits 
+ * and misses so its effectiveness can be checked.
+ * 
+ * The cache assumes that calculateFitness always returns the same value for 
+ * the same genes, which is true unless the fitness calculation is itself 
+ * random.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class FitnessCache {
+    
+    private final int maximumSize;
+    private final LinkedHashMap<GenomeKey, Double> entries;
+    
+    private long hits = 0;
+    private long misses = 0;
+    
+    /**
+     * @param maximumSize the largest number of fitness values to hold
+     */
+    public FitnessCache(final int maximumSize){
+        if ( maximumSize < 1 ){
+            throw new IllegalArgumentException("Cache size must be at least 1: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        //access ordered so the eldest entry is the least recently used
+        this.entries = new LinkedHashMap<GenomeKey, Double>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<GenomeKey, Double> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+    
+    /**
+     * Looks up the fitness of the Chromosome's genome, counting a hit or miss.
+     * 
+     * @param chromosome the Chromosome to look up
+     * @return the fitness or null if it is not in the cache
+     */
+    synchronized Double get(Chromosome chromosome){
+        Double fitness = entries.get(chromosome.genomeKey(false));
+        if ( fitness == null ){
+            misses++;
+        }else{
+            hits++;
+        }
+        return fitness;
+    }
+    
+    /**
+     * Stores the fitness of the Chromosome's genome.  The genome is copied 
+     * so later changes to the Chromosome do not affect the cache.
+     * 
+     * @param chromosome the Chromosome that has been evaluated
+     * @param fitness the fitness of the Chromosome
+     */
+    void put(Chromosome chromosome, double fitness){
+        GenomeKey key = chromosome.genomeKey(true);
+        synchronized(this){
+            entries.put(key, fitness);
+        }
+    }
+    
+    /**
+     * @return the number of lookups that found a fitness value
+     */
+    public synchronized long getHits(){
+        return hits;
+    }
+    
+    /**
+     * @return the number of lookups that did not find a fitness value
+     */
+    public synchronized long getMisses(){
+        return misses;
+    }
+    
+    /**
+     * @return the proportion of lookups that found a fitness value, 0 if 
+     * there have been no lookups
+     */
+    public synchronized double getHitRate(){
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double)hits / lookups;
+    }
+    
+    /**
+     * @return the number of fitness values held
+     */
+    public synchronized int size(){
+        return entries.size();
+    }
+    
+    /**
+     * @return the largest number of fitness values held
+     */
+    public int getMaximumSize(){
+        return maximumSize;
+    }
+    
+    /**
+     * Removes all of the fitness values and resets the counters.
+     */
+    public synchronized void clear(){
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+    
+}
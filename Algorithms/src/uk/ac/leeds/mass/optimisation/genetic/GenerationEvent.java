@@ -0,0 +1,61 @@
+/**
+ * Java Flight Recorder event committed at the end of each generation of a 
+ * GeneticAlgorithm run.  The event is disabled unless a recording enables 
+ * it, in which case its duration covers the whole generation.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ *
+ * @author kirkharland
+ */
+@Name("uk.ac.leeds.mass.optimisation.genetic.Generation")
+@Label("Generation")
+@Category({"Optimisation", "Genetic Algorithm"})
+@Description("A generation of a genetic algorithm run")
+final class GenerationEvent extends Event{
+    
+    @Label("Generation")
+    int generation;
+    
+    @Label("Best Fitness")
+    double bestFitness;
+    
+    @Label("Mean Fitness")
+    double meanFitness;
+    
+    @Label("Worst Fitness")
+    double worstFitness;
+    
+    @Label("Diversity")
+    @Description("Proportion of the candidates that are distinct")
+    double diversity;
+    
+    @Label("Evaluations")
+    long evaluations;
+    
+    @Label("Breeding Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long breedingTime;
+    
+    @Label("Evaluation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long evaluationTime;
+    
+    @Label("Selection Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long selectionTime;
+    
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+    
+}
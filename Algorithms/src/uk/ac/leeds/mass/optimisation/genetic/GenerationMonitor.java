@@ -0,0 +1,218 @@
+/**
+ * Collects the timings and statistics for each generation of a 
+ * GeneticAlgorithm and passes them to the IGenerationListeners, the 
+ * subscribers of the generation publisher and Java Flight Recorder.  The 
+ * timings are always taken as they cost little more than a call to 
+ * System.nanoTime, the statistics that need a pass over the population 
+ * (such as the diversity) are only worked out when something is listening.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class GenerationMonitor {
+    
+    private final List<IGenerationListener> listeners = new CopyOnWriteArrayList<IGenerationListener>();
+    private final LatencyHistogram evaluationLatency = new LatencyHistogram();
+    
+    //null if the JVM cannot measure the allocations of a thread
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+    
+    private long runStart = 0;
+    private long breedingTime = 0;
+    private long evaluationTime = 0;
+    private long evaluationsAtStart = 0;
+    private long allocatedAtStart = 0;
+    private GenerationEvent event = null;
+    
+    //statistics of the evaluated candidates, before selection
+    private int candidateCount = 0;
+    private double candidateMean = Double.NaN;
+    private double candidateWorst = Double.NaN;
+    private double candidateDiversity = Double.NaN;
+    
+    private volatile GenerationStatistics lastStatistics = null;
+    private volatile GenerationPublisher publisher = null;
+    
+    private static com.sun.management.ThreadMXBean threadBean(){
+        try{
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if ( bean instanceof com.sun.management.ThreadMXBean ){
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if ( threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled() ){
+                    return threads;
+                }
+            }
+        }catch(LinkageError e){
+            //not a HotSpot JVM
+        }
+        return null;
+    }
+    
+    void runStarted(long evaluations){
+        runStart = System.nanoTime();
+        evaluationLatency.reset();
+        lastStatistics = null;
+        generationStarted(evaluations);
+    }
+    
+    /**
+     * Marks the start of a generation, which begins with breeding the 
+     * candidate population (or creating the initial population).
+     */
+    void generationStarted(long evaluations){
+        breedingTime = 0;
+        evaluationTime = 0;
+        evaluationsAtStart = evaluations;
+        allocatedAtStart = allocatedBytes();
+        event = new GenerationEvent();
+        event.begin();
+    }
+    
+    void breedingFinished(long nanos){
+        breedingTime += nanos;
+    }
+    
+    void evaluationFinished(long nanos){
+        evaluationTime += nanos;
+    }
+    
+    /**
+     * Records the statistics of the evaluated candidates of a generation, 
+     * before the current breed population joins them for selection.
+     * 
+     * @param candidates the evaluated offspring and any migrants
+     * @param lessThan true if smaller fitness values are better
+     */
+    void candidatesEvaluated(List<Chromosome> candidates, boolean lessThan){
+        GenerationPublisher p = publisher;
+        boolean detailed = !listeners.isEmpty() || event.isEnabled() || (p != null && p.hasSubscribers());
+        
+        double mean = Double.NaN;
+        double worst = Double.NaN;
+        double diversity = Double.NaN;
+        if ( detailed ){
+            double total = 0;
+            int counted = 0;
+            for (Chromosome c : candidates) {
+                double f = c.getFitness();
+                if ( Double.isNaN(f) ){continue;}
+                total += f;
+                counted++;
+                if ( Double.isNaN(worst) || (lessThan ? f > worst : f < worst) ){
+                    worst = f;
+                }
+            }
+            mean = counted == 0 ? Double.NaN : total / counted;
+            if ( !candidates.isEmpty() ){
+                diversity = (double)new HashSet<Chromosome>(candidates).size() / candidates.size();
+            }
+        }
+        candidateCount = candidates.size();
+        candidateMean = mean;
+        candidateWorst = worst;
+        candidateDiversity = diversity;
+    }
+    
+    /**
+     * Records the end of a generation whose candidates have been passed to 
+     * candidatesEvaluated and tells the listeners about it.
+     * 
+     * @return the statistics for the generation
+     */
+    GenerationStatistics generationFinished(int generation, Chromosome best, List<Chromosome> breedPopulation, 
+            long selectionTime, long evaluations){
+        return finish(generation, fitness(best), candidateMean, candidateWorst, candidateDiversity, candidateCount, 
+                breedPopulation, selectionTime, evaluations);
+    }
+    
+    /**
+     * Records the end of a generation whose candidates were not kept, with 
+     * the mean and worst fitness worked out as the candidates streamed past.  
+     * The diversity is not known.
+     * 
+     * @return the statistics for the generation
+     */
+    GenerationStatistics generationFinished(int generation, int candidates, double mean, double worst, 
+            Chromosome best, List<Chromosome> breedPopulation, long selectionTime, long evaluations){
+        return finish(generation, fitness(best), mean, worst, Double.NaN, candidates, breedPopulation, 
+                selectionTime, evaluations);
+    }
+    
+    private GenerationStatistics finish(int generation, double best, double mean, double worst, double diversity, 
+            int candidates, List<Chromosome> breedPopulation, long selectionTime, long evaluations){
+        long allocated = allocatedBytes();
+        GenerationStatistics statistics = new GenerationStatistics(generation, best, mean, worst, diversity, 
+                candidates, evaluations - evaluationsAtStart, breedingTime, evaluationTime, selectionTime, 
+                allocated < 0 || allocatedAtStart < 0 ? -1 : allocated - allocatedAtStart, 
+                System.nanoTime() - runStart);
+        lastStatistics = statistics;
+        
+        event.end();
+        if ( event.shouldCommit() ){
+            event.generation = generation;
+            event.bestFitness = best;
+            event.meanFitness = mean;
+            event.worstFitness = worst;
+            event.diversity = diversity;
+            event.evaluations = statistics.getEvaluations();
+            event.breedingTime = breedingTime;
+            event.evaluationTime = evaluationTime;
+            event.selectionTime = selectionTime;
+            event.allocatedBytes = statistics.getAllocatedBytes();
+            event.commit();
+        }
+        
+        for (IGenerationListener listener : listeners) {
+            listener.generationComplete(statistics);
+        }
+        GenerationPublisher p = publisher;
+        if ( p != null ){
+            p.publish(statistics, breedPopulation);
+        }
+        
+        generationStarted(evaluations);
+        return statistics;
+    }
+    
+    private static double fitness(Chromosome best){
+        return best == null ? Double.NaN : best.getFitness();
+    }
+    
+    private static long allocatedBytes(){
+        if ( THREADS == null ){return -1;}
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    
+    LatencyHistogram getEvaluationLatency(){
+        return evaluationLatency;
+    }
+    
+    GenerationStatistics getLastStatistics(){
+        return lastStatistics;
+    }
+    
+    void setPublisher(GenerationPublisher publisher){
+        this.publisher = publisher;
+    }
+    
+    void addListener(IGenerationListener listener){
+        listeners.add(listener);
+    }
+    
+    void removeListener(IGenerationListener listener){
+        listeners.remove(listener);
+    }
+    
+    void clearListeners(){
+        listeners.clear();
+    }
+    
+}
@@ -0,0 +1,111 @@
+/**
+ * Publishes a GenerationSnapshot to its subscribers at the end of each 
+ * generation of a GeneticAlgorithm.  The snapshots are delivered on threads 
+ * of their own through a SubmissionPublisher, each subscriber having a 
+ * buffer of snapshots it has not yet taken.  When the buffer of a slow 
+ * subscriber is full the new snapshot is dropped for that subscriber rather 
+ * than waiting, so a subscriber can never hold up the evolution.  Nothing 
+ * is copied while there are no subscribers.  The best members are copied 
+ * with Chromosome.copyTo, as for a BestSolution, so a snapshot holds them 
+ * whatever form their genes take and not only those with a numeric one.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class GenerationPublisher implements Flow.Publisher<GenerationSnapshot> {
+    
+    private final GeneticAlgorithm ga;
+    private final ExecutorService threads;
+    private final SubmissionPublisher<GenerationSnapshot> publisher;
+    private final AtomicLong dropped = new AtomicLong();
+    
+    /**
+     * @param ga the GeneticAlgorithm whose generations are published
+     * @param bufferSize the number of snapshots each subscriber can fall 
+     * behind by before snapshots are dropped
+     */
+    GenerationPublisher(GeneticAlgorithm ga, int bufferSize){
+        this.ga = ga;
+        this.threads = Executors.newCachedThreadPool(new GeneticAlgorithm.DaemonThreadFactory("snapshot"));
+        this.publisher = new SubmissionPublisher<GenerationSnapshot>(threads, bufferSize);
+    }
+    
+    @Override
+    public void subscribe(Flow.Subscriber<? super GenerationSnapshot> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+    
+    /**
+     * @return true if anything has subscribed and not yet cancelled
+     */
+    boolean hasSubscribers(){
+        return publisher.hasSubscribers();
+    }
+    
+    /**
+     * Publishes a snapshot of a generation that has just finished, without 
+     * waiting for any subscriber.
+     * 
+     * @param statistics the statistics of the generation
+     * @param breedPopulation the new breed population, best first
+     */
+    void publish(GenerationStatistics statistics, List<Chromosome> breedPopulation){
+        if ( !publisher.hasSubscribers() ){return;}
+        
+        int size = Math.min(ga.getSnapshotEliteSize(), breedPopulation.size());
+        boolean several = ga.getObjectives() != null;
+        Chromosome[] elite = new Chromosome[size];
+        double[][] genomes = new double[size][];
+        double[] fitness = new double[size];
+        double[][] objectiveValues = several ? new double[size][] : null;
+        for (int i = 0; i < size; i++) {
+            Chromosome c = breedPopulation.get(i);
+            //the copy is never used by the algorithm so it cannot change
+            try{
+                elite[i] = c.copyTo(ga);
+            }catch(InstantiationException e){
+                ga.reportError(e);
+                return;
+            }
+            genomes[i] = c.getGenomeVector();
+            fitness[i] = c.getFitness();
+            if ( several ){
+                objectiveValues[i] = c.objectives().clone();
+            }
+        }
+        
+        int lag = publisher.offer(new GenerationSnapshot(statistics, elite, genomes, fitness, objectiveValues), null);
+        if ( lag < 0 ){
+            dropped.addAndGet(-lag);
+        }
+    }
+    
+    /**
+     * @return the number of snapshots dropped because a subscriber had 
+     * fallen behind, counted once for each subscriber
+     */
+    long getDroppedCount(){
+        return dropped.get();
+    }
+    
+    /**
+     * Tells the subscribers that no more snapshots will be published and 
+     * stops the delivery threads once they have passed on the snapshots 
+     * already published.
+     */
+    void close(){
+        publisher.close();
+        threads.shutdown();
+    }
+    
+}
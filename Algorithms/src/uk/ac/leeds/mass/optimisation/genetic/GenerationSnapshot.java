@@ -0,0 +1,99 @@
+/**
+ * A snapshot of one generation of a GeneticAlgorithm run, handed to the 
+ * subscribers of the generation publisher.  It holds the statistics of the 
+ * generation along with copies of the best members of the new breed 
+ * population, their genomes and fitness.  A GenerationSnapshot never 
+ * changes once it has been published so it can be read on any thread while 
+ * the algorithm carries on.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public final class GenerationSnapshot {
+    
+    private final GenerationStatistics statistics;
+    private final Chromosome[] elite;
+    private final double[][] eliteGenomes;
+    private final double[] eliteFitness;
+    private final double[][] eliteObjectiveValues;
+    
+    GenerationSnapshot(GenerationStatistics statistics, Chromosome[] elite, double[][] eliteGenomes, 
+            double[] eliteFitness, double[][] eliteObjectiveValues){
+        this.statistics = statistics;
+        this.elite = elite;
+        this.eliteGenomes = eliteGenomes;
+        this.eliteFitness = eliteFitness;
+        this.eliteObjectiveValues = eliteObjectiveValues;
+    }
+    
+    /**
+     * @return the generation number, starting at 0 for the initial population
+     */
+    public int getGeneration() {
+        return statistics.getGeneration();
+    }
+    
+    /**
+     * @return the fitness statistics and timings of the generation
+     */
+    public GenerationStatistics getStatistics() {
+        return statistics;
+    }
+    
+    /**
+     * @return the number of members of the breed population held, best first
+     */
+    public int getEliteSize() {
+        return eliteFitness.length;
+    }
+    
+    /**
+     * Returns a copy of a member of the breed population, which holds its 
+     * genes whatever form they take.  The same copy is returned to every 
+     * caller so it should not be changed.
+     * 
+     * @param index the position in the breed population, 0 for the best
+     * @return the copy of the member
+     */
+    public Chromosome getEliteChromosome(int index) {
+        return elite[index];
+    }
+    
+    /**
+     * @param index the position in the breed population, 0 for the best
+     * @return the genes of the member as returned by 
+     * Chromosome.getGenomeVector, or null if they have no numeric form, in 
+     * which case they can be read from getEliteChromosome
+     */
+    public double[] getEliteGenome(int index) {
+        double[] genome = eliteGenomes[index];
+        return genome == null ? null : genome.clone();
+    }
+    
+    /**
+     * @param index the position in the breed population, 0 for the best
+     * @return the fitness of the member
+     */
+    public double getEliteFitness(int index) {
+        return eliteFitness[index];
+    }
+    
+    /**
+     * @param index the position in the breed population, 0 for the best
+     * @return the value of each objective for the member when calibrating 
+     * to several objectives, otherwise null
+     */
+    public double[] getEliteObjectiveValues(int index) {
+        double[] values = eliteObjectiveValues == null ? null : eliteObjectiveValues[index];
+        return values == null ? null : values.clone();
+    }
+    
+    @Override
+    public String toString(){
+        return statistics + " elite " + eliteFitness.length;
+    }
+    
+}
@@ -0,0 +1,151 @@
+/**
+ * Statistics describing one generation of a GeneticAlgorithm run.  Objects 
+ * of this class cannot be changed once created so they can be passed 
+ * safely to other threads.
+ * 
+ * All times are in nanoseconds.  The allocation count only covers the 
+ * thread running the GeneticAlgorithm, not the evaluation threads, and is 
+ * -1 where the JVM cannot measure it.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public final class GenerationStatistics {
+    
+    private final int generation;
+    private final double bestFitness;
+    private final double meanFitness;
+    private final double worstFitness;
+    private final double diversity;
+    private final int candidateCount;
+    private final long evaluations;
+    private final long breedingTime;
+    private final long evaluationTime;
+    private final long selectionTime;
+    private final long allocatedBytes;
+    private final long elapsedTime;
+    
+    GenerationStatistics(int generation, double bestFitness, double meanFitness, double worstFitness, 
+            double diversity, int candidateCount, long evaluations, long breedingTime, long evaluationTime, 
+            long selectionTime, long allocatedBytes, long elapsedTime){
+        this.generation = generation;
+        this.bestFitness = bestFitness;
+        this.meanFitness = meanFitness;
+        this.worstFitness = worstFitness;
+        this.diversity = diversity;
+        this.candidateCount = candidateCount;
+        this.evaluations = evaluations;
+        this.breedingTime = breedingTime;
+        this.evaluationTime = evaluationTime;
+        this.selectionTime = selectionTime;
+        this.allocatedBytes = allocatedBytes;
+        this.elapsedTime = elapsedTime;
+    }
+
+    /**
+     * @return the generation number, starting at 0 for the initial population
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return the fitness of the best Chromosome in the new breed population
+     */
+    public double getBestFitness() {
+        return bestFitness;
+    }
+
+    /**
+     * @return the mean fitness of the candidates of the generation, the 
+     * offspring and any migrants but not the previous breed population, 
+     * ignoring any NaN values, or NaN if it was not measured because nothing 
+     * was listening
+     */
+    public double getMeanFitness() {
+        return meanFitness;
+    }
+
+    /**
+     * @return the worst fitness of the candidates of the generation, 
+     * ignoring any NaN values, or NaN if it was not measured because nothing 
+     * was listening
+     */
+    public double getWorstFitness() {
+        return worstFitness;
+    }
+
+    /**
+     * @return the proportion of the candidates of the generation that are 
+     * distinct, between 0 and 1, or NaN if it was not measured because 
+     * nothing was listening
+     */
+    public double getDiversity() {
+        return diversity;
+    }
+
+    /**
+     * @return the number of candidates of the generation, the offspring and 
+     * any migrants
+     */
+    public int getCandidateCount() {
+        return candidateCount;
+    }
+
+    /**
+     * @return the number of fitness calculations made in this generation, 
+     * not counting values found in the fitness cache
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * @return the time spent breeding and mutating the candidates
+     */
+    public long getBreedingTime() {
+        return breedingTime;
+    }
+
+    /**
+     * @return the time spent calculating the fitness of the candidates
+     */
+    public long getEvaluationTime() {
+        return evaluationTime;
+    }
+
+    /**
+     * @return the time spent ranking the candidates and selecting the breed 
+     * population, which are done together
+     */
+    public long getSelectionTime() {
+        return selectionTime;
+    }
+
+    /**
+     * @return the bytes allocated by the thread running the GeneticAlgorithm 
+     * during this generation, or -1 if not available
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return the time since the start of the run
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+    
+    @Override
+    public String toString(){
+        return String.format("Generation %d best=%s mean=%s worst=%s diversity=%.3f evaluations=%d "
+                + "breeding=%.3fms evaluation=%.3fms selection=%.3fms allocated=%d", 
+                generation, bestFitness, meanFitness, worstFitness, diversity, evaluations, 
+                breedingTime / 1e6, evaluationTime / 1e6, selectionTime / 1e6, allocatedBytes);
+    }
+    
+}
@@ -7,10 +7,29 @@
  */
 package uk.ac.leeds.mass.optimisation.genetic;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import uk.ac.leeds.mass.statistics.gof.IGOF;
@@ -25,18 +44,127 @@ public class GeneticAlgorithm implements Runnable{
     
     private Random random = null;
     
+    //the random number stream of the offspring being created on each thread
+    private final ThreadLocal<StreamBinding> streams = new ThreadLocal<StreamBinding>(){
+        @Override
+        protected StreamBinding initialValue() {
+            return new StreamBinding();
+        }
+    };
+    
     private int generations = 200;
     private int breedPopulationSize = 25;
     private int candidatePopulationSize = 250;
     private double mutationRate = 0.25;
     
+    //parallel fitness evaluation
+    private int parallelism = 1;
+    private Executor executor = null;
+    private Executor evaluationExecutor = null;
+    private ExecutorService ownedExecutor = null;
+    
+    //Chromosome objects that were not selected, reused for the offspring 
+    //when pooling, and the array the offspring are bred into
+    private boolean pooling = false;
+    private final List<Chromosome> spares = new ArrayList<Chromosome>();
+    private int poolStamp = 0;
+    private Chromosome[] offspringBuffer = new Chromosome[0];
+    
+    //chooses the parents, if null each member of the breed population is 
+    //bred in turn with a random partner
+    private ISelectionStrategy selectionStrategy = null;
+    
+    //creates the offspring, if null the constructors are found by reflection
+    private IChromosomeFactory chromosomeFactory = null;
+    
+    //evaluates the candidates in batches, null to evaluate them one at a time
+    private IBatchEvaluator batchEvaluator = null;
+    private int batchSize = 0;
+    
+    //predicts the fitness of the offspring so only the most promising are 
+    //evaluated, null if not in use
+    private ISurrogate surrogate = null;
+    private double surrogateEvaluationFraction = 0.25;
+    private int surrogateWarmUp = 0;
+    private volatile SurrogateScreen surrogateScreen = null;
+    
+    //memetic refinement of the best members of the breed population every 
+    //few generations, null if not in use
+    private ILocalSearch localSearch = null;
+    private int localSearchInterval = 10;
+    private int localSearchCount = 3;
+    private int localSearchEvaluations = 50;
+    
+    //streams the offspring through breeding, evaluation and selection 
+    //rather than holding the candidate population, the seed and kind of 
+    //the next generation are kept until it is streamed
+    private boolean streaming = false;
+    private int streamingQueueSize = 64;
+    private boolean streamingRun = false;
+    private StreamingGeneration streamer = null;
+    private long streamSeed = 0L;
+    private boolean streamInitial = false;
+    
+    //holds the candidate population of a DoubleGenome off the heap
+    private boolean offHeap = false;
+    private ArenaGeneration arena = null;
+    
+    //optional cache of fitness values, null if not in use
+    private FitnessCache fitnessCache = null;
+    
+    //checkpointing, the file is null if no checkpoints are being taken
+    private Path checkpointFile = null;
+    private int checkpointInterval = 10;
+    private Checkpoint resumeCheckpoint = null;
+    private ExecutorService checkpointWriter = null;
+    private Future<?> pendingCheckpoint = null;
+    
+    //steady state evolution replaces the generations with a continuous 
+    //stream of offspring
+    private boolean steadyState = false;
+    
+    //throughput of the current or last run
+    private final AtomicLong evaluationCount = new AtomicLong();
+    private volatile long runStartTime = 0;
+    private volatile long runEndTime = 0;
+    
     //fitness calculation
     private IGOF gof = new SRMSE();
     
+    //multi-objective calibration, null when calibrating to the gof alone
+    private IGOF[] objectives = null;
+    private final ParetoSelector paretoSelector = new ParetoSelector();
+    
     private List<Chromosome> candidatePopulation = new ArrayList<Chromosome>();
     private List<Chromosome> breedPopulation = new ArrayList<Chromosome>();
     private List<IErrorListener> errorListeners = new ArrayList<IErrorListener>();
+    private List<ITerminationCondition> terminationConditions = new ArrayList<ITerminationCondition>();
     private Chromosome chromosome = null;
+    //true if the fitness can be updated when a few genes change
+    private boolean incremental = false;
+    private final EliteSelector eliteSelector = new EliteSelector();
+    
+    //instrumentation
+    private final GenerationMonitor monitor = new GenerationMonitor();
+    
+    //publishes a snapshot of each generation, created when first asked for
+    private GenerationPublisher generationPublisher = null;
+    private final Object publisherLock = new Object();
+    private volatile int snapshotEliteSize = 10;
+    private int snapshotBufferSize = 16;
+    private volatile int generation = 0;
+    
+    //the best found so far, readable from any thread while running
+    private final AtomicReference<BestSolution> bestSolution = new AtomicReference<BestSolution>();
+    
+    //cooperative control of a run from other threads
+    private volatile boolean cancelled = false;
+    private volatile boolean paused = false;
+    private final Object pauseLock = new Object();
+    
+    //why the last run stopped
+    private volatile String terminationReason = null;
+    private volatile ITerminationCondition terminationCondition = null;
     
     //private constructor so that nobody calls it!
     private GeneticAlgorithm(){}
@@ -50,6 +178,7 @@ public class GeneticAlgorithm implements Runnable{
     public GeneticAlgorithm(Chromosome chromosome){
         random = new Random();
         this.chromosome = chromosome;
+        this.incremental = chromosome instanceof IIncrementalFitness;
     }
     
     /**
@@ -74,208 +203,2113 @@ public class GeneticAlgorithm implements Runnable{
     
     @Override
     public void run(){
+        startRun();
+        try{
+            boolean finished;
+            if ( steadyState ){
+                finished = new SteadyStateEvolution(this).evolve();
+            }else{
+                finished = evolve();
+            }
+            if ( !finished ){
+                terminationReason = cancelled ? "Cancelled" : "Stopped by an error";
+            }else if ( terminationReason == null ){
+                terminationReason = "Completed";
+            }
+        }finally{
+            finishRun();
+        }
+    }
+    
+    /**
+     * The main generational loop of the genetic algorithm.
+     * 
+     * @return true if the run finished, false if an error occurred and has 
+     * been reported.
+     */
+    private boolean evolve(){
         
-        //create the initial candidate population
-        //if there is an error report it and end.
-        for (int i = 0; i < candidatePopulationSize; i++) {
-            try{
-                candidatePopulation.add(chromosome.createNewChromosome(this));
-            }catch(Exception e){
-                this.reportError(e);
-                return;
+        int first = 0;
+        if ( resumeCheckpoint != null ){
+            //carry on from the generation after the checkpoint
+            Checkpoint checkpoint = resumeCheckpoint;
+            resumeCheckpoint = null;
+            if ( !restore(checkpoint) ){return false;}
+            first = checkpoint.getGeneration() + 1;
+            if ( checkpoint.getGeneration() < getGenerations() ){
+                if ( !breedCandidatePopulation() ){return false;}
             }
+        }else{
+            //create the initial candidate population
+            //if there is an error report it and end.
+            if ( !createInitialPopulation() ){return false;}
         }
         
         //cycle through the generations
         //the + 1 is to allow for the final cycle to store the best
         //candidates into the breed population
-        for (int i = 0; i < getGenerations() + 1; i++) {
-                    
-            //test the finess of the candidate population
-            for (Chromosome c : candidatePopulation) {
-                c.getFitness();
-            }
+        for (int i = first; i < getGenerations() + 1; i++) {
             
-            //store best performing chromosomes in the breed population
-            for (Chromosome c : getBreedPopulation()) {
-                candidatePopulation.add(c);
-            }
+            if ( !awaitResume() ){return false;}
+            if ( !evaluateAndSelect() ){return false;}
             
-            //order the candidate population and select the new breed population
-            if (gof.calibrateToLessThan()){
-                Collections.sort(candidatePopulation, new SortOrder(true));
-            }else{
-                Collections.sort(candidatePopulation, new SortOrder(false));
-            }
+            //stop early if one of the termination conditions is satisfied,
+            //the breed population just selected is the result
+            boolean stop = i < getGenerations() && isTerminated();
+            boolean last = stop || i == getGenerations();
             
-            //clear the breed population
-            getBreedPopulation().clear();
-            int counter = 0;
-            //Add the best performing chromosomes from the candidate population
-            for (int j = 0; j < candidatePopulation.size(); j++) {
-                if (!breedPopulation.contains(candidatePopulation.get(j))){
-                    breedPopulation.add(candidatePopulation.get(j));
-                    counter++;
+            if ( checkpointFile != null ){
+                if ( last || (i + 1) % checkpointInterval == 0 ){
+                    checkpoint(i, last);
                 }
-                
-                //if we have added all of the breed population then exit the loop
-                if (counter == breedPopulationSize){break;}
-                
             }
+            
+            if ( stop ){break;}
         
-            //if not the last generation
+            //if not the last generation breed new candidate population
             if( i < (getGenerations()) ){
-                //breed new candidate population
-                candidatePopulation.clear();
-                int breedPopulationCounter = 0;
-                for (int j = 0; j < candidatePopulationSize; j++) {
-                    //select other random chromosome to breed with
-                    int breedIndex = random.nextInt(breedPopulationSize);
-                    //if we have selected the same chromosome to breed with
-                    //shunt the index out by 1.
-                    if ( breedIndex == breedPopulationCounter ){
-                        
-                        //are we at the top?
-                        if ( breedIndex == breedPopulationSize-1 ){
-                            breedIndex--;
-                        //are we at the bottom?
-                        }else if ( breedIndex == 0 ){
-                            breedIndex++;
-                        }else{
-                            breedIndex = random.nextBoolean() ? breedIndex++ : breedIndex--;
-                        }
-                    }
-                    
-                    Chromosome newChromosome = null;
-                    try{
-                        newChromosome = getBreedPopulation().get(breedPopulationCounter).breed(getBreedPopulation().get(breedIndex));
-                    }catch(Exception e){
-                        reportError(e);
-                        return;
-                    }
-                    //mutate random members of the candidate population
-                    if ( random.nextDouble() < mutationRate ){
-                        newChromosome.mutate();
-                    }
-                    
-                    candidatePopulation.add(newChromosome);
-                    
-                    breedPopulationCounter++;
-                    if (breedPopulationCounter == breedPopulationSize){breedPopulationCounter = 0;}
+                if ( !breedCandidatePopulation() ){return false;}
+            }
+        
+        }
+        
+        if ( terminationCondition == null ){
+            terminationReason = "Completed " + getGenerations() + " generations";
+        }
+        return true;
+    }
+    
+    /**
+     * Tests the termination conditions against the generation that has just 
+     * finished, recording the first one satisfied.
+     * 
+     * @return true if the run should stop
+     */
+    boolean isTerminated(){
+        if ( terminationConditions.isEmpty() ){return false;}
+        GenerationStatistics statistics = monitor.getLastStatistics();
+        for (ITerminationCondition condition : terminationConditions) {
+            if ( condition.isSatisfied(this, statistics) ){
+                terminationCondition = condition;
+                terminationReason = condition.getDescription();
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Takes a checkpoint of the generation that has just finished and hands 
+     * it to the checkpoint writer thread.  If the writer is still busy with 
+     * the previous checkpoint this one is skipped, unless it is the last one 
+     * of the run, so that a slow disk never holds up the evolution.
+     */
+    private void checkpoint(int generation, boolean last){
+        if ( pendingCheckpoint != null && !pendingCheckpoint.isDone() && !last ){return;}
+        final Checkpoint checkpoint;
+        try{
+            checkpoint = Checkpoint.capture(generation, evaluationCount.get(), random, breedPopulation);
+        }catch(IOException e){
+            reportError(e);
+            return;
+        }
+        if ( checkpointWriter == null ){
+            checkpointWriter = Executors.newSingleThreadExecutor(new DaemonThreadFactory("checkpoint"));
+        }
+        final Path file = checkpointFile;
+        pendingCheckpoint = checkpointWriter.submit(new Runnable(){
+            @Override
+            public void run() {
+                try{
+                    checkpoint.write(file);
+                }catch(IOException e){
+                    reportError(e);
                 }
+            }
+        });
+    }
+    
+    /**
+     * Restores the random number generator and breed population from a 
+     * checkpoint.
+     * 
+     * @return true if the checkpoint was restored, false if an error 
+     * occurred and has been reported.
+     */
+    private boolean restore(Checkpoint checkpoint){
+        try{
+            random = checkpoint.restoreRandom();
+            checkpoint.restorePopulation(this, breedPopulation);
+            generation = checkpoint.getGeneration() + 1;
+            if ( checkpoint.getEvaluations() >= 0 ){
+                evaluationCount.set(checkpoint.getEvaluations());
+            }
+        }catch(IOException e){
+            reportError(e);
+            return false;
+        }catch(InstantiationException e){
+            reportError(e);
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Prepares this GeneticAlgorithm for a new run, clearing any populations 
+     * left from a previous run and working out which executor (if any) 
+     * should be used to evaluate the candidate population.  Every call must 
+     * be matched by a call to finishRun.
+     */
+    void startRun(){
+        candidatePopulation.clear();
+        breedPopulation.clear();
+        spares.clear();
+        evaluationCount.set(0);
+        runStartTime = System.nanoTime();
+        runEndTime = 0;
+        generation = 0;
+        monitor.runStarted(0);
+        terminationReason = null;
+        terminationCondition = null;
+        bestSolution.set(null);
+        for (ITerminationCondition condition : terminationConditions) {
+            condition.reset();
+        }
         
-                
-            }        
+        if ( surrogate != null ){
+            surrogate.clear();
+        }
+        surrogateScreen = surrogate == null ? null : new SurrogateScreen(surrogate, surrogateEvaluationFraction, 
+                surrogateWarmUp > 0 ? surrogateWarmUp : candidatePopulationSize);
+        arena = offHeap && objectives == null ? new ArenaGeneration(this, (DoubleGenome)chromosome) : null;
+        streamingRun = streaming && objectives == null && arena == null;
+        streamer = streamingRun ? new StreamingGeneration(this, streamingQueueSize) : null;
         
+        if ( executor != null ){
+            evaluationExecutor = executor;
+        }else if ( parallelism > 1 ){
+            ownedExecutor = Executors.newFixedThreadPool(parallelism, new DaemonThreadFactory("evaluator"));
+            evaluationExecutor = ownedExecutor;
+        }else{
+            evaluationExecutor = null;
+        }
+    }
+    
+    /**
+     * Releases any threads created by startRun.
+     */
+    void finishRun(){
+        runEndTime = System.nanoTime();
+        cancelled = false;
+        paused = false;
+        streamingRun = false;
+        streamer = null;
+        arena = null;
+        if ( checkpointWriter != null ){
+            //let the last checkpoint finish writing
+            checkpointWriter.shutdown();
+            try{
+                checkpointWriter.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            checkpointWriter = null;
+            pendingCheckpoint = null;
+        }
+        if ( ownedExecutor != null ){
+            ownedExecutor.shutdownNow();
+            ownedExecutor = null;
+        }
+        evaluationExecutor = null;
+    }
+    
+    /**
+     * Fills the candidate population with new Chromosome objects created 
+     * from the Chromosome this GeneticAlgorithm was created with.  Each new 
+     * Chromosome is populated using its own random number stream so the 
+     * population is the same however many threads create it.
+     * 
+     * @return true if the population was created, false if an error 
+     * occurred and has been reported.
+     */
+    boolean createInitialPopulation(){
+        long start = System.nanoTime();
+        final long generationSeed = random.nextLong();
+        if ( streamingRun ){
+            streamSeed = generationSeed;
+            streamInitial = true;
+            return true;
+        }
+        if ( arena != null ){
+            candidatePopulation.clear();
+            boolean ok = arena.create(generationSeed);
+            monitor.breedingFinished(System.nanoTime() - start);
+            return ok;
+        }
+        final Chromosome[] created = new Chromosome[candidatePopulationSize];
+        boolean ok = forEachIndex(created.length, breedingChunkSize(created.length), new IndexedTask(){
+            @Override
+            public void run(int index) throws Exception {
+                StreamBinding binding = streams.get();
+                binding.bind(generationSeed, index);
+                try{
+                    created[index] = chromosome.createNewChromosome(GeneticAlgorithm.this);
+                }finally{
+                    binding.bound = null;
+                }
+            }
+        });
+        if ( !ok ){return false;}
+        Collections.addAll(candidatePopulation, created);
+        monitor.breedingFinished(System.nanoTime() - start);
+        return true;
+    }
+    
+    /**
+     * Tests the fitness of the candidate population and selects the best 
+     * performing distinct Chromosome objects from the candidates and the 
+     * current breed population as the new breed population.
+     * 
+     * @return true if the new breed population was selected, false if an 
+     * error occurred and has been reported.
+     */
+    boolean evaluateAndSelect(){
+        if ( streamingRun ){
+            return streamAndSelect();
+        }
+        if ( arena != null ){
+            return evaluateAndSelectOffHeap();
+        }
+        //test the finess of the candidate population, dropping the 
+        //offspring the surrogate predicts will do badly first
+        long start = System.nanoTime();
+        SurrogateScreen screen = objectives == null ? surrogateScreen : null;
+        if ( screen != null && !screen.screen(this, candidatePopulation, gof.calibrateToLessThan()) ){return false;}
+        if ( !evaluate(candidatePopulation) ){return false;}
+        if ( screen != null ){
+            screen.learn();
         }
+        monitor.evaluationFinished(System.nanoTime() - start);
         
+        //the statistics cover the candidates, not the breed population 
+        //added to them for selection
+        monitor.candidatesEvaluated(candidatePopulation, gof.calibrateToLessThan());
+        long evaluated = System.nanoTime();
         
+        if ( !selectBreedPopulation(candidatePopulation, breedPopulation) ){return false;}
+        Chromosome best = bestOf(breedPopulation);
+        publishBest(best, generation);
+        if ( pooling ){
+            collectSpares();
+        }
+        long selected = System.nanoTime();
+        
+        monitor.generationFinished(generation, best, breedPopulation, selected - evaluated, evaluationCount.get());
+        generation++;
+        return true;
     }
-
+    
     /**
-     * @return the random
+     * Selects the new breed population once the offspring have been 
+     * evaluated.  The best performing distinct Chromosome objects from the 
+     * offspring and the current breed population are selected, refining 
+     * them with the local search if one is in use.  Sub classes using other 
+     * ways of choosing the survivors, such as the optimisers in 
+     * uk.ac.leeds.mass.optimisation, override this along with 
+     * createOffspring.
+     * 
+     * @param offspring the evaluated offspring in the order they were 
+     * created, the members of the current breed population are added to 
+     * the end of this list
+     * @param breedPopulation the current breed population, which is replaced 
+     * by the new breed population best first
+     * @return true if the new breed population was selected, false if an 
+     * error occurred and has been reported.
      */
-    public Random getRandom() {
-        return random;
+    protected boolean selectBreedPopulation(List<Chromosome> offspring, List<Chromosome> breedPopulation){
+        //store best performing chromosomes in the breed population
+        offspring.addAll(breedPopulation);
+        
+        //select the best distinct chromosomes from the candidate 
+        //population as the new breed population
+        breedPopulation.clear();
+        if ( objectives != null ){
+            paretoSelector.select(offspring, objectives, breedPopulationSize, breedPopulation);
+        }else{
+            eliteSelector.select(offspring, gof.calibrateToLessThan(), breedPopulationSize, breedPopulation);
+            if ( !refineIfDue() ){return false;}
+        }
+        return true;
     }
-
+    
     /**
-     * @return the generations
+     * Creates, evaluates and selects the generation in one pass through a 
+     * StreamingGeneration, used in place of breeding the candidate 
+     * population and then evaluating and selecting it.  The candidate 
+     * population only holds the migrants added since the generation was 
+     * bred, which are evaluated and offered after the offspring.
+     * 
+     * @return true if the new breed population was selected, false if an 
+     * error occurred and has been reported.
      */
-    public int getGenerations() {
-        return generations;
+    private boolean streamAndSelect(){
+        long start = System.nanoTime();
+        StreamingSelector selector = new StreamingSelector(breedPopulationSize, gof.calibrateToLessThan());
+        List<Chromosome> migrants = candidatePopulation;
+        if ( !streamer.run(streamSeed, streamInitial, migrants.size(), selector) ){return false;}
+        if ( !evaluateMigrants() ){return false;}
+        for (int i = 0; i < migrants.size(); i++) {
+            selector.offer(migrants.get(i), candidatePopulationSize + i);
+        }
+        migrants.clear();
+        long evaluated = System.nanoTime();
+        monitor.breedingFinished(streamer.getBreedingTime());
+        monitor.evaluationFinished(evaluated - start - streamer.getBreedingTime());
+        
+        breedPopulation.clear();
+        selector.drainTo(breedPopulation);
+        if ( !refineIfDue() ){return false;}
+        Chromosome best = bestOf(breedPopulation);
+        publishBest(best, generation);
+        long selected = System.nanoTime();
+        
+        monitor.generationFinished(generation, selector.getOffered(), selector.getMean(), selector.getWorst(), 
+                best, breedPopulation, selected - evaluated, evaluationCount.get());
+        generation++;
+        return true;
     }
-
+    
     /**
-     * @param generations the generations to set
+     * Evaluates the candidate population held off the heap and selects the 
+     * new breed population from it.  The candidate population only holds 
+     * the migrants added since the generation was bred, which are evaluated 
+     * and selected from after the offspring.
+     * 
+     * @return true if the new breed population was selected, false if an 
+     * error occurred and has been reported.
      */
-    public void setGenerations(int generations) {
-        this.generations = generations;
+    private boolean evaluateAndSelectOffHeap(){
+        long start = System.nanoTime();
+        if ( !arena.evaluate() ){return false;}
+        if ( !evaluateMigrants() ){return false;}
+        long evaluated = System.nanoTime();
+        monitor.evaluationFinished(evaluated - start);
+        
+        boolean ok = arena.select(breedPopulationSize, gof.calibrateToLessThan(), candidatePopulation);
+        candidatePopulation.clear();
+        if ( !ok ){return false;}
+        if ( !refineIfDue() ){return false;}
+        Chromosome best = bestOf(breedPopulation);
+        publishBest(best, generation);
+        long selected = System.nanoTime();
+        
+        monitor.generationFinished(generation, arena.getOffered(), arena.getMean(), arena.getWorst(), 
+                best, breedPopulation, selected - evaluated, evaluationCount.get());
+        generation++;
+        return true;
     }
-
+    
+    //evaluates the migrants added to the candidate population when the 
+    //offspring are streamed or held off the heap, where the candidate 
+    //population holds nothing else
+    private boolean evaluateMigrants(){
+        final List<Chromosome> migrants = candidatePopulation;
+        return forEachIndex(migrants.size(), 1, new IndexedTask(){
+            @Override
+            public void run(int index) {
+                migrants.get(index).getFitness();
+            }
+        });
+    }
+    
+    //runs the local search if one is in use and this is a generation to 
+    //run it in
+    private boolean refineIfDue(){
+        if ( localSearch != null && generation > 0 && generation % localSearchInterval == 0 ){
+            return refine();
+        }
+        return true;
+    }
+    
     /**
-     * @return the breedPopulationSize
+     * Replaces the candidate population with offspring bred from the 
+     * breed population, mutating random members.  Every offspring has its 
+     * own random number stream, seeded from a seed drawn for the generation 
+     * and the position of the offspring, which is used for all of the 
+     * random choices made in creating it.  This means the offspring can be 
+     * bred on several threads and still be exactly the same as when they 
+     * are bred one after another.
+     * 
+     * @return true if the new candidate population was bred, false if an 
+     * error occurred and has been reported.
      */
-    public int getBreedPopulationSize() {
-        return breedPopulationSize;
+    boolean breedCandidatePopulation(){
+        long start = System.nanoTime();
+        candidatePopulation.clear();
+        if ( breedPopulation.isEmpty() ){
+            reportError(new IllegalStateException("There are no Chromosome objects to breed from"));
+            return false;
+        }
+        ISelectionStrategy strategy = selectionStrategy;
+        if ( strategy != null ){
+            double[] fitness = new double[breedPopulation.size()];
+            for (int i = 0; i < fitness.length; i++) {
+                fitness[i] = breedPopulation.get(i).getFitness();
+            }
+            strategy.prepare(fitness, gof.calibrateToLessThan());
+        }
+        final long generationSeed = random.nextLong();
+        if ( streamingRun ){
+            streamSeed = generationSeed;
+            streamInitial = false;
+            return true;
+        }
+        if ( arena != null ){
+            boolean ok = arena.breed(generationSeed);
+            monitor.breedingFinished(System.nanoTime() - start);
+            return ok;
+        }
+        if ( offspringBuffer.length != candidatePopulationSize ){
+            offspringBuffer = new Chromosome[candidatePopulationSize];
+        }
+        final Chromosome[] offspring = offspringBuffer;
+        boolean ok = forEachIndex(offspring.length, breedingChunkSize(offspring.length), new IndexedTask(){
+            @Override
+            public void run(int index) throws Exception {
+                StreamBinding binding = streams.get();
+                binding.bind(generationSeed, index);
+                try{
+                    offspring[index] = createOffspring(index, binding.stream);
+                }finally{
+                    binding.bound = null;
+                }
+            }
+        });
+        spares.clear();
+        if ( !ok ){return false;}
+        Collections.addAll(candidatePopulation, offspring);
+        Arrays.fill(offspring, null);
+        monitor.breedingFinished(System.nanoTime() - start);
+        return true;
     }
-
+    
     /**
-     * @param breedPopulationSize the breedPopulationSize to set
+     * Runs the local search from each of the best members of the breed 
+     * population in parallel, replacing each with the best Chromosome found 
+     * from it unless that is already in the breed population.  Every search 
+     * has its own random number stream so the result does not depend on the 
+     * number of threads.
+     * 
+     * @return true if the searches finished, false if an error occurred 
+     * and has been reported.
      */
-    public void setBreedPopulationSize(int breedPopulationSize) {
-        this.breedPopulationSize = breedPopulationSize;
+    private boolean refine(){
+        final ILocalSearch search = localSearch;
+        final int evaluations = localSearchEvaluations;
+        final Chromosome[] improved = new Chromosome[Math.min(localSearchCount, breedPopulation.size())];
+        final long searchSeed = random.nextLong();
+        boolean ok = forEachIndex(improved.length, 1, new IndexedTask(){
+            @Override
+            public void run(int index) throws Exception {
+                StreamBinding binding = streams.get();
+                binding.bind(searchSeed, index);
+                try{
+                    improved[index] = search.improve(breedPopulation.get(index), 
+                            new Neighbourhood(GeneticAlgorithm.this, evaluations));
+                }finally{
+                    binding.bound = null;
+                }
+            }
+        });
+        if ( !ok ){return false;}
+        
+        boolean changed = false;
+        for (int i = 0; i < improved.length; i++) {
+            Chromosome c = improved[i];
+            if ( c == null || c == breedPopulation.get(i) || breedPopulation.contains(c) ){continue;}
+            if ( isBetter(c.getFitness(), breedPopulation.get(i).getFitness()) ){
+                breedPopulation.set(i, c);
+                changed = true;
+            }
+        }
+        
+        //keep the breed population best first
+        if ( changed ){
+            final boolean lessThan = gof.calibrateToLessThan();
+            Collections.sort(breedPopulation, new Comparator<Chromosome>(){
+                @Override
+                public int compare(Chromosome a, Chromosome b) {
+                    return Double.compare(rank(a.getFitness()), rank(b.getFitness()));
+                }
+                private double rank(double fitness){
+                    if ( Double.isNaN(fitness) ){return Double.POSITIVE_INFINITY;}
+                    return lessThan ? fitness : -fitness;
+                }
+            });
+        }
+        return true;
     }
-
+    
     /**
-     * @return the candidatePopulationSize
+     * Finds the member of a population with the best fitness.  When 
+     * calibrating to several objectives the fitness is the first objective, 
+     * which the breed population is not sorted by, so its first member is 
+     * not necessarily the best.
+     * 
+     * @param population the evaluated Chromosome objects
+     * @return the first of the members with the best fitness, or null if 
+     * the population is empty
      */
-    public int getCandidatePopulationSize() {
-        return candidatePopulationSize;
+    Chromosome bestOf(List<Chromosome> population){
+        Chromosome best = null;
+        for (Chromosome c : population) {
+            if ( best == null || isBetter(c.getFitness(), best.getFitness()) ){
+                best = c;
+            }
+        }
+        return best;
     }
-
+    
     /**
-     * @param candidatePopulationSize the candidatePopulationSize to set
+     * Publishes the best member of the breed population if it is better 
+     * than the best found so far.
      */
-    public void setCandidatePopulationSize(int candidatePopulationSize) {
-        this.candidatePopulationSize = candidatePopulationSize;
+    private void publishBest(Chromosome best, int generation){
+        if ( best != null ){
+            offerBest(best, generation);
+        }
     }
-
+    
     /**
-     * @return the mutationRate
+     * Publishes a copy of the Chromosome as the best found so far if it is 
+     * better than the one already published.  This may be called from 
+     * several threads at once.
+     * 
+     * @param c the evaluated Chromosome
+     * @param generation the generation it was found in
      */
-    public double getMutationRate() {
-        return mutationRate;
+    void offerBest(Chromosome c, int generation){
+        double fitness = c.getFitness();
+        BestSolution current = bestSolution.get();
+        if ( current != null && !isBetter(fitness, current.getFitness()) ){return;}
+        
+        //the copy is never used by the algorithm so it cannot change
+        Chromosome copy;
+        try{
+            copy = c.copyTo(this);
+        }catch(InstantiationException e){
+            reportError(e);
+            return;
+        }
+        BestSolution solution = new BestSolution(copy, fitness, 
+                objectives == null ? null : c.objectives().clone(), generation, 
+                evaluationCount.get(), System.nanoTime() - runStartTime);
+        
+        //another thread may have published a better one since
+        while ( current == null || isBetter(fitness, current.getFitness()) ){
+            if ( bestSolution.compareAndSet(current, solution) ){return;}
+            current = bestSolution.get();
+        }
     }
-
+    
+    //true if fitness a is better than b, NaN is always worst
+    private boolean isBetter(double a, double b){
+        return isBetter(a, b, gof.calibrateToLessThan());
+    }
+    
     /**
-     * @param mutationRate the mutationRate to set
+     * Compares two fitness values, NaN always being worst.
+     * 
+     * @param a the first fitness
+     * @param b the second fitness
+     * @param lessThan true if smaller fitness values are better
+     * @return true if a is better than b
      */
-    public void setMutationRate(double mutationRate) {
-        this.mutationRate = mutationRate;
+    static boolean isBetter(double a, double b, boolean lessThan){
+        if ( Double.isNaN(a) ){return false;}
+        if ( Double.isNaN(b) ){return true;}
+        return lessThan ? a < b : a > b;
     }
-
+    
     /**
-     * @return the gof
+     * Waits while the run is paused.
+     * 
+     * @return true to carry on, false if the run has been cancelled
      */
-    public IGOF getGof() {
-        return gof;
+    boolean awaitResume(){
+        if ( paused ){
+            synchronized(pauseLock){
+                while ( paused && !cancelled ){
+                    try{
+                        pauseLock.wait();
+                    }catch(InterruptedException e){
+                        //treat an interrupt as a request to stop
+                        Thread.currentThread().interrupt();
+                        cancelled = true;
+                    }
+                }
+            }
+        }
+        return !cancelled;
     }
-
+    
     /**
-     * @param gof the gof to set
+     * Collects the Chromosome objects that were not selected into the breed 
+     * population so they can be reused for the next offspring.
      */
-    public void setGof(IGOF gof) {
-        this.gof = gof;
+    private void collectSpares(){
+        spares.clear();
+        int stamp = ++poolStamp;
+        for (Chromosome c : breedPopulation) {
+            c.poolStamp = stamp;
+        }
+        for (Chromosome c : candidatePopulation) {
+            if ( c.poolStamp != stamp ){
+                c.poolStamp = stamp;
+                spares.add(c);
+            }
+        }
     }
     
-    private void reportError(Exception e){
-        if ( errorListeners.isEmpty() ){
-            Logger.getGlobal().log(Level.SEVERE, e.getMessage());
+    /**
+     * Creates the offspring at a position in the candidate population, by 
+     * default by breeding two members of the breed population.  Sub classes 
+     * creating offspring in other ways override this along with 
+     * selectBreedPopulation.  This is called from several threads at once 
+     * when running in parallel, but never at the same time as the selection.
+     * 
+     * @param index the position of the offspring in the candidate population
+     * @param random the random number stream of the offspring, which must 
+     * be used for every random choice made in creating it
+     * @return the new offspring
+     * @throws Exception if the offspring cannot be created, the run stops 
+     * and the exception is reported
+     */
+    protected Chromosome createOffspring(int index, Random random) throws Exception{
+        return breedOffspring(index, random, index < spares.size() ? spares.get(index) : null);
+    }
+    
+    /**
+     * Creates a Chromosome of the same sub class as the one this 
+     * GeneticAlgorithm was created with from a genome, which for a 
+     * DoubleGenome is an array of double values and for an IntGenome an 
+     * array of int values.  Used by sub classes creating offspring without 
+     * breeding.
+     * 
+     * @param genome the genome of the new Chromosome, which is copied
+     * @return the new unevaluated Chromosome
+     * @throws InstantiationException if the Chromosome cannot be created
+     */
+    protected final Chromosome createChromosome(Object genome) throws InstantiationException{
+        return chromosome.importGenome(this, genome);
+    }
+    
+    /**
+     * Returns the fitness of a Chromosome, calculating it if it has not 
+     * been calculated already.
+     * 
+     * @param c a Chromosome belonging to this GeneticAlgorithm
+     * @return the fitness
+     */
+    protected final double getFitness(Chromosome c){
+        return c.getFitness();
+    }
+    
+    /**
+     * Breeds a single offspring.  If there is no selection strategy the 
+     * breed population is worked through in turn for the first parent, each 
+     * being bred with a random partner, otherwise both parents are chosen by 
+     * the strategy.
+     * 
+     * @param index the position of the offspring in the candidate population
+     * @param random the random number stream of the offspring
+     * @param spare a Chromosome to reuse for the offspring, or null
+     * @return the new offspring
+     * @throws InstantiationException if the offspring cannot be created
+     */
+    private Chromosome breedOffspring(int index, Random random, Chromosome spare) throws InstantiationException{
+        long parents = chooseParents(index, breedPopulation.size(), random);
+        Chromosome newChromosome = breedPopulation.get((int)(parents >>> 32)).breed(breedPopulation.get((int)parents), spare);
+        //mutate random members of the candidate population
+        if ( random.nextDouble() < mutationRate ){
+            newChromosome.mutate();
+        }
+        return newChromosome;
+    }
+    
+    /**
+     * Chooses the parents of an offspring from the breed population.
+     * 
+     * @param index the position of the offspring in the candidate population
+     * @param size the size of the breed population
+     * @param random the random number stream of the offspring
+     * @return the index of the first parent in the high 32 bits and of its 
+     * partner in the low 32 bits
+     */
+    long chooseParents(int index, int size, Random random){
+        ISelectionStrategy strategy = selectionStrategy;
+        int first;
+        int partner;
+        
+        if ( strategy == null ){
+            first = index % size;
+            //select other random chromosome to breed with
+            partner = otherThan(first, size, random);
         }else{
-            for (IErrorListener listener : errorListeners) {
-                listener.catchError(e);
+            first = strategy.select(random);
+            partner = strategy.select(random);
+            //if we have selected the same chromosome to breed with try 
+            //again, but only a few times as a strong strategy in a 
+            //population with one outstanding member may keep selecting it
+            for (int i = 0; i < 3 && partner == first; i++) {
+                partner = strategy.select(random);
+            }
+            if ( partner == first ){
+                partner = otherThan(first, size, random);
             }
         }
+        return ((long)first << 32) | (partner & 0xFFFFFFFFL);
     }
     
-    public void addErrorListener(IErrorListener listener){
-        this.errorListeners.add(listener);
+    //a random index other than the one given, unless there is only one
+    private static int otherThan(int index, int size, Random random){
+        if ( size == 1 ){return 0;}
+        int other = random.nextInt(size - 1);
+        return other >= index ? other + 1 : other;
     }
     
-    public void removeErrorListener(IErrorListener listener){
-        this.errorListeners.remove(listener);
+    //breeding is cheap compared to evaluation so it is handed out in 
+    //larger chunks, a few for each thread
+    private int breedingChunkSize(int count){
+        return Math.max(1, count / (parallelism * 4));
     }
     
-    public void clearErrorListeners(){
-        this.errorListeners.clear();
+    /**
+     * @return the Chromosome this GeneticAlgorithm was created with
+     */
+    Chromosome getChromosome(){
+        return chromosome;
     }
-
+    
     /**
-     * @return the breedPopulation
+     * @return the candidate population, used by the drivers in this package 
+     * that add Chromosome objects from elsewhere between generations
      */
-    public List<Chromosome> getBreedPopulation() {
-        return breedPopulation;
+    List<Chromosome> getCandidatePopulation(){
+        return candidatePopulation;
+    }
+
+    /**
+     * Calculates the fitness of every Chromosome in the list which has not 
+     * already been evaluated.  If an executor is active for this run the 
+     * calculations are handed to it and this method waits for them all to 
+     * complete, otherwise they are calculated one after another on the 
+     * calling thread.  Either way the fitness values are the same, as the 
+     * order of evaluation has no bearing on the random number generator.
+     * 
+     * @param chromosomes the Chromosome objects to evaluate
+     * @return true if all of the Chromosome objects were evaluated, false if 
+     * an error occurred and has been reported.
+     */
+    private boolean evaluate(final List<Chromosome> chromosomes){
+        if ( batchEvaluator != null && objectives == null ){
+            return evaluateInBatches(chromosomes);
+        }
+        return forEachIndex(chromosomes.size(), 1, new IndexedTask(){
+            @Override
+            public void run(int index) {
+                chromosomes.get(index).getFitness();
+            }
+        });
+    }
+    
+    /**
+     * Calculates the fitness of the Chromosome objects in the list which 
+     * have not already been evaluated using the IBatchEvaluator.  Fitness 
+     * values found in the fitness cache are used without evaluating the 
+     * Chromosome again, and when the cache is in use identical Chromosome 
+     * objects in the list are only evaluated once.  The rest are split into 
+     * batches of the batch size, which are evaluated in parallel if an 
+     * executor is active for this run.
+     * 
+     * @param chromosomes the Chromosome objects to evaluate
+     * @return true if all of the Chromosome objects were evaluated, false if 
+     * an error occurred and has been reported.
+     */
+    private boolean evaluateInBatches(List<Chromosome> chromosomes){
+        final FitnessCache cache = fitnessCache;
+        final List<Chromosome> pending = new ArrayList<Chromosome>();
+        //the Chromosome objects that are identical to one being evaluated
+        Map<Chromosome, List<Chromosome>> duplicates = null;
+        if ( cache != null ){
+            duplicates = new HashMap<Chromosome, List<Chromosome>>();
+        }
+        
+        for (Chromosome c : chromosomes) {
+            if ( c.isEvaluated() ){continue;}
+            if ( cache != null ){
+                Double cached = cache.get(c);
+                if ( cached != null ){
+                    c.setFitness(cached.doubleValue());
+                    continue;
+                }
+                List<Chromosome> same = duplicates.get(c);
+                if ( same != null ){
+                    same.add(c);
+                    continue;
+                }
+                duplicates.put(c, new ArrayList<Chromosome>(0));
+            }
+            pending.add(c);
+        }
+        
+        final int size = batchSize > 0 ? batchSize : Math.max(1, pending.size());
+        final int batches = (pending.size() + size - 1) / size;
+        final IBatchEvaluator evaluator = batchEvaluator;
+        boolean ok = forEachIndex(batches, 1, new IndexedTask(){
+            @Override
+            public void run(int index) throws Exception {
+                List<Chromosome> batch = Collections.unmodifiableList(
+                        pending.subList(index * size, Math.min(pending.size(), (index + 1) * size)));
+                evaluationCount.addAndGet(batch.size());
+                long start = System.nanoTime();
+                double[] fitness = evaluator.evaluate(batch, gof);
+                long each = (System.nanoTime() - start) / batch.size();
+                if ( fitness == null || fitness.length != batch.size() ){
+                    throw new IllegalStateException("Expected " + batch.size() + " fitness values from " 
+                            + evaluator.getClass().getName() + " but got " + (fitness == null ? 0 : fitness.length));
+                }
+                for (int i = 0; i < fitness.length; i++) {
+                    Chromosome c = batch.get(i);
+                    c.setFitness(fitness[i]);
+                    monitor.getEvaluationLatency().record(each);
+                    if ( cache != null ){
+                        cache.put(c, fitness[i]);
+                    }
+                }
+            }
+        });
+        if ( !ok ){return false;}
+        
+        if ( duplicates != null ){
+            for (Map.Entry<Chromosome, List<Chromosome>> entry : duplicates.entrySet()) {
+                for (Chromosome c : entry.getValue()) {
+                    c.copyFitness(entry.getKey());
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * A piece of work done for each index of a population.
+     */
+    interface IndexedTask{
+        void run(int index) throws Exception;
+    }
+    
+    /**
+     * Runs the task for every index from 0 to count - 1.  If an executor is 
+     * active for this run the indexes are split into chunks which are handed 
+     * to the executor and this method waits for them all to complete, 
+     * otherwise the task is run for each index in turn on the calling thread.  
+     * If the run is cancelled no more indexes are started.
+     * 
+     * @param count the number of indexes
+     * @param chunkSize the number of indexes handed to the executor at once
+     * @param task the task to run
+     * @return true if the task ran for every index, false if an error 
+     * occurred and has been reported or the run was cancelled.
+     */
+    boolean forEachIndex(int count, int chunkSize, final IndexedTask task){
+        
+        if ( evaluationExecutor == null || count <= 1 ){
+            try{
+                for (int i = 0; i < count; i++) {
+                    if ( cancelled ){return false;}
+                    task.run(i);
+                }
+            }catch(Exception e){
+                reportError(e);
+                return false;
+            }
+            return true;
+        }
+        
+        //hand each chunk to the executor
+        List<FutureTask<Object>> tasks = new ArrayList<FutureTask<Object>>();
+        for (int from = 0; from < count; from += chunkSize) {
+            final int first = from;
+            final int last = Math.min(count, from + chunkSize);
+            FutureTask<Object> future = new FutureTask<Object>(new Callable<Object>(){
+                @Override
+                public Object call() throws Exception{
+                    for (int i = first; i < last; i++) {
+                        if ( cancelled ){break;}
+                        task.run(i);
+                    }
+                    return null;
+                }
+            });
+            tasks.add(future);
+            evaluationExecutor.execute(future);
+        }
+        
+        //wait for all of the chunks to finish, if one fails 
+        //cancel the rest and report the error
+        for (int i = 0; i < tasks.size(); i++) {
+            try{
+                tasks.get(i).get();
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                cancel(tasks);
+                reportError(e);
+                return false;
+            }catch(ExecutionException e){
+                cancel(tasks);
+                reportError(e.getCause() instanceof Exception ? (Exception)e.getCause() : e);
+                return false;
+            }
+        }
+        //a cancelled run leaves some of the indexes undone
+        return !cancelled;
+    }
+    
+    /**
+     * Calculates the fitness of a single Chromosome using the IGOF set on 
+     * this GeneticAlgorithm.  If a fitness cache is in use and an identical 
+     * Chromosome has been evaluated before the cached value is returned 
+     * instead of running the calculation again.
+     * 
+     * @param c the Chromosome to calculate the fitness of
+     * @return the fitness of the Chromosome
+     */
+    double calculateFitness(Chromosome c){
+        if ( objectives != null ){
+            //the fitness is the value of the first objective
+            return c.objectives()[0];
+        }
+        FitnessCache cache = fitnessCache;
+        if ( cache != null ){
+            Double cached = cache.get(c);
+            if ( cached != null ){
+                return cached.doubleValue();
+            }
+        }
+        evaluationCount.incrementAndGet();
+        long start = System.nanoTime();
+        double fitness = incremental ? c.calculateIncrementalFitness(gof) : c.calculateFitness(gof);
+        monitor.getEvaluationLatency().record(System.nanoTime() - start);
+        if ( cache != null ){
+            cache.put(c, fitness);
+        }
+        return fitness;
+    }
+    
+    /**
+     * Calculates the value of each objective for a single Chromosome.  If 
+     * no objectives have been set the IGOF set on this GeneticAlgorithm is 
+     * the only objective.
+     * 
+     * @param c the Chromosome to calculate the objectives of
+     * @return the value of each objective
+     */
+    double[] calculateObjectives(Chromosome c){
+        IGOF[] tests = objectives;
+        if ( tests == null ){
+            tests = new IGOF[]{gof};
+        }
+        evaluationCount.incrementAndGet();
+        long start = System.nanoTime();
+        double[] values = c.calculateFitness(tests);
+        monitor.getEvaluationLatency().record(System.nanoTime() - start);
+        if ( values == null || values.length != tests.length ){
+            throw new IllegalStateException("Expected " + tests.length + " objective values from " 
+                    + c.getClass().getName() + " but got " + (values == null ? 0 : values.length));
+        }
+        return values;
+    }
+    
+    /**
+     * @return true if the Chromosome objects implement IIncrementalFitness, 
+     * so the genes changed since they were bred are recorded
+     */
+    boolean isIncremental(){
+        return incremental;
+    }
+    
+    /**
+     * @return the executor used to evaluate Chromosome objects during the 
+     * current run, or null if they are evaluated on the calling thread
+     */
+    Executor getEvaluationExecutor(){
+        return evaluationExecutor;
+    }
+    
+    private void cancel(List<FutureTask<Object>> tasks){
+        for (FutureTask<Object> task : tasks) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Returns the random number generator to use.  While an offspring is 
+     * being created this is the random number stream of that offspring, so 
+     * Chromosome and Gene implementations that take all of their random 
+     * numbers from here give exactly the same results for a given seed 
+     * whatever the number of threads.  At any other time it is the random 
+     * number generator of the run itself.
+     * 
+     * @return the random
+     */
+    public Random getRandom() {
+        Random stream = streams.get().bound;
+        return stream == null ? random : stream;
+    }
+    
+    /**
+     * Makes getRandom return the given stream on the calling thread, used 
+     * by the drivers in this package that create offspring themselves.
+     * 
+     * @param stream the stream to use, null to go back to the random number 
+     * generator of the run
+     */
+    void bindRandom(Random stream){
+        streams.get().bound = stream;
+    }
+
+    /**
+     * @return the generations
+     */
+    public int getGenerations() {
+        return generations;
+    }
+
+    /**
+     * @param generations the generations to set
+     */
+    public void setGenerations(int generations) {
+        this.generations = generations;
+    }
+
+    /**
+     * @return the breedPopulationSize
+     */
+    public int getBreedPopulationSize() {
+        return breedPopulationSize;
+    }
+
+    /**
+     * @param breedPopulationSize the breedPopulationSize to set
+     */
+    public void setBreedPopulationSize(int breedPopulationSize) {
+        this.breedPopulationSize = breedPopulationSize;
+    }
+
+    /**
+     * @return the candidatePopulationSize
+     */
+    public int getCandidatePopulationSize() {
+        return candidatePopulationSize;
+    }
+
+    /**
+     * @param candidatePopulationSize the candidatePopulationSize to set
+     */
+    public void setCandidatePopulationSize(int candidatePopulationSize) {
+        this.candidatePopulationSize = candidatePopulationSize;
+    }
+
+    /**
+     * @return the mutationRate
+     */
+    public double getMutationRate() {
+        return mutationRate;
+    }
+
+    /**
+     * @param mutationRate the mutationRate to set
+     */
+    public void setMutationRate(double mutationRate) {
+        this.mutationRate = mutationRate;
+    }
+
+    /**
+     * @return the number of threads used to evaluate the candidate 
+     * population when no executor has been set
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of threads used to evaluate the candidate population.
+     * A value of 1 (the default) evaluates each Chromosome in turn on the 
+     * thread calling run.  Any larger value creates a thread pool of that 
+     * size for the duration of each run.  This setting is ignored if an 
+     * executor has been supplied, except in steady state mode where it is 
+     * the number of workers handed to the executor.
+     * 
+     * @param parallelism the parallelism to set, must be at least 1
+     */
+    public void setParallelism(int parallelism) {
+        if ( parallelism < 1 ){
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return the executor used to evaluate the candidate population or 
+     * null if none has been set
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets an executor to evaluate the candidate population with.  The 
+     * executor is not shut down at the end of the run so it can be shared 
+     * between several GeneticAlgorithm objects.  Set to null to go back to 
+     * using the parallelism setting.
+     * 
+     * @param executor the executor to set
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return the factory used to create new Chromosome objects or null 
+     * if the default reflective factory is being used
+     */
+    public IChromosomeFactory getChromosomeFactory() {
+        return chromosomeFactory;
+    }
+
+    /**
+     * Sets the factory used to create new Chromosome objects.  If no factory 
+     * is set the constructors of the Chromosome sub class are found by 
+     * reflection the first time they are needed and then reused, in which 
+     * case the sub class must declare a constructor taking the 
+     * GeneticAlgorithm (and one also taking an ArrayList of Gene objects if 
+     * it holds its genes as a list).
+     * 
+     * @param chromosomeFactory the chromosomeFactory to set
+     */
+    public void setChromosomeFactory(IChromosomeFactory chromosomeFactory) {
+        this.chromosomeFactory = chromosomeFactory;
+    }
+
+    /**
+     * Turns on checkpointing.  Every interval generations, and at the end 
+     * of the run, the generation number, the evaluation count, the state 
+     * of the random number generator and the breed population are written 
+     * to the file so the run can be carried on with loadCheckpoint if the 
+     * JVM dies.  The file is written on a background thread and if it is 
+     * still being written when the next checkpoint is due that checkpoint 
+     * is skipped.  The Gene sub classes must implement Serializable.  
+     * Checkpoints are not taken in steady state mode.
+     * 
+     * @param file the file to write the checkpoints to, null to turn 
+     * checkpointing off
+     * @param interval the number of generations between checkpoints
+     */
+    public void setCheckpoint(Path file, int interval) {
+        if ( interval < 1 ){
+            throw new IllegalArgumentException("Checkpoint interval must be at least 1: " + interval);
+        }
+        this.checkpointFile = file;
+        this.checkpointInterval = interval;
+    }
+    
+    /**
+     * @return the file checkpoints are written to or null if checkpointing 
+     * is turned off
+     */
+    public Path getCheckpointFile() {
+        return checkpointFile;
+    }
+    
+    /**
+     * @return the number of generations between checkpoints
+     */
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+    
+    /**
+     * Loads a checkpoint so that the next call to run carries on from the 
+     * generation after the one the checkpoint was taken at, rather than 
+     * starting from a new random population.  The checkpoint holds the 
+     * generation number, the evaluation count, the state of the random 
+     * number generator and the breed population.  As long as this 
+     * GeneticAlgorithm has the same settings as the one that wrote the 
+     * checkpoint and the fitness calculation and Gene mutation only use 
+     * the random number generator of the GeneticAlgorithm, the resumed run 
+     * selects the same breed populations as a run that was never stopped.  
+     * 
+     * Some state is not saved, so a resumed run can still differ.  The 
+     * termination conditions are reset when the run starts: a 
+     * StagnationTermination or ToleranceTermination only looks at the 
+     * generations since the resume and a TimeBudgetTermination measures the 
+     * time since the resume, so they can stop the run at a different 
+     * generation.  An EvaluationBudgetTermination carries on from the saved 
+     * evaluation count, but the fitness cache is not saved so offspring it 
+     * would have found are evaluated again and counted.  The states of an 
+     * IIncrementalFitness are lost, so the offspring of the restored breed 
+     * population have their fitness worked out in full, which gives the 
+     * same fitness but takes longer.  The samples a surrogate has learnt are 
+     * lost too, so the resumed run starts the surrogate again from nothing 
+     * and screens different offspring.  The generation statistics and the 
+     * elapsed time start again from the resume.
+     * 
+     * @param file the checkpoint file to load
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     */
+    public void loadCheckpoint(Path file) throws IOException {
+        this.resumeCheckpoint = Checkpoint.read(file);
+    }
+    
+    /**
+     * @return true if a checkpoint has been loaded for the next run to 
+     * carry on from
+     */
+    boolean isResuming(){
+        return resumeCheckpoint != null;
+    }
+    
+    /**
+     * Records why a run driven from outside this class ended, if nothing 
+     * else has.  Called before finishRun.
+     * 
+     * @param finished true if every generation was run or a termination 
+     * condition was satisfied, false if the run was cancelled or stopped by 
+     * an error
+     */
+    void recordTermination(boolean finished){
+        if ( !finished ){
+            terminationReason = cancelled ? "Cancelled" : "Stopped by an error";
+        }else if ( terminationReason == null ){
+            terminationReason = "Completed " + getGenerations() + " generations";
+        }
+    }
+    
+    /**
+     * @return true if this GeneticAlgorithm evolves in steady state mode
+     */
+    public boolean isSteadyState() {
+        return steadyState;
+    }
+
+    /**
+     * Switches between generational and steady state evolution.  In steady 
+     * state mode there are no generations, instead each of the evaluation 
+     * threads (as many as the parallelism setting) repeatedly picks two 
+     * parents from the breed population, breeds and mutates them, 
+     * calculates the fitness of the offspring and replaces the worst member 
+     * of the breed population if the offspring is better.  The threads 
+     * never wait for each other, so a slow fitness calculation does not 
+     * hold up the rest.  The run ends after the same number of offspring as 
+     * the generational mode would create, generations multiplied by the 
+     * candidate population size.
+     * 
+     * As the offspring are inserted in the order they finish, a steady 
+     * state run using more than one thread cannot be reproduced exactly 
+     * from its seed.
+     * 
+     * @param steadyState true for steady state mode, false for generational
+     */
+    public void setSteadyState(boolean steadyState) {
+        this.steadyState = steadyState;
+    }
+    
+    /**
+     * @return the number of times calculateFitness has been called in the 
+     * current or last run, fitness values found in the cache are not counted
+     */
+    public long getEvaluationCount() {
+        return evaluationCount.get();
+    }
+    
+    /**
+     * @return the number of fitness calculations per second in the current 
+     * or last run, 0 if no run has been started
+     */
+    public double getEvaluationsPerSecond() {
+        long start = runStartTime;
+        if ( start == 0 ){return 0.0;}
+        long end = runEndTime == 0 ? System.nanoTime() : runEndTime;
+        double seconds = (end - start) / 1e9;
+        return seconds <= 0 ? 0.0 : evaluationCount.get() / seconds;
+    }
+
+    /**
+     * @return the gof
+     */
+    public IGOF getGof() {
+        return gof;
+    }
+
+    /**
+     * Sets the IGOF used to calculate the fitness.  Any cached fitness 
+     * values are cleared as they were calculated with the previous IGOF.  
+     * This turns off calibrating to several objectives.
+     * 
+     * @param gof the gof to set
+     */
+    public void setGof(IGOF gof) {
+        this.gof = gof;
+        this.objectives = null;
+        if ( fitnessCache != null ){
+            fitnessCache.clear();
+        }
+    }
+    
+    /**
+     * @return the objectives being calibrated to at once, or null if 
+     * calibrating to the single IGOF returned by getGof
+     */
+    public IGOF[] getObjectives() {
+        return objectives == null ? null : objectives.clone();
+    }
+    
+    /**
+     * Calibrates to several IGOF statistics at once, such as those returned 
+     * by GOFFactory.getGOFTestsSelected, instead of running the algorithm 
+     * once for each.  Each Chromosome is tested with all of them through 
+     * Chromosome.calculateFitness(IGOF[]) and the breed population is 
+     * selected by non-dominated sorting and crowding distance, so that it 
+     * holds a spread of the best trade offs between the objectives.  The 
+     * Pareto front is returned by getParetoFront.
+     * 
+     * The first objective becomes the IGOF returned by getGof and its value 
+     * is used as the fitness for the generation statistics, termination 
+     * conditions and steady state mode.  The fitness cache is not used 
+     * while calibrating to several objectives.  Passing null or a single 
+     * IGOF goes back to calibrating to one.
+     * 
+     * @param objectives the IGOF statistics to calibrate to
+     */
+    public void setObjectives(IGOF[] objectives) {
+        if ( objectives == null || objectives.length == 0 ){
+            this.objectives = null;
+            return;
+        }
+        for (IGOF objective : objectives) {
+            if ( objective == null ){
+                throw new IllegalArgumentException("Objectives cannot contain null");
+            }
+        }
+        setGof(objectives[0]);
+        if ( objectives.length > 1 ){
+            this.objectives = objectives.clone();
+        }
+    }
+    
+    /**
+     * Returns the members of the breed population that are not dominated 
+     * by any other member, that is where no other member is at least as good 
+     * on every objective and better on one.  When calibrating to a single 
+     * IGOF this is the members with the best fitness.
+     * 
+     * @return the non-dominated members of the breed population
+     */
+    public List<Chromosome> getParetoFront() {
+        IGOF[] tests = objectives;
+        if ( tests == null ){
+            tests = new IGOF[]{gof};
+        }
+        return paretoSelector.firstFront(breedPopulation, tests);
+    }
+    
+    /**
+     * Returns the best Chromosome found so far in the current or last run.  
+     * This can be called from any thread at any time while the algorithm 
+     * is running, without holding it up, and is the way to read a result 
+     * before the run finishes.
+     * 
+     * @return the best solution found so far, or null if no generation has 
+     * been evaluated yet
+     */
+    public BestSolution getBestSolution() {
+        return bestSolution.get();
+    }
+    
+    /**
+     * Asks the current run to stop.  No more Chromosome objects are bred or 
+     * evaluated once this has been called, so the run stops after the 
+     * calculations already in progress finish, and the termination reason 
+     * is "Cancelled".  The best solution found so far is kept.  If called 
+     * before the run starts it stops as soon as it starts.
+     */
+    public void cancel() {
+        cancelled = true;
+        synchronized(pauseLock){
+            pauseLock.notifyAll();
+        }
+    }
+    
+    /**
+     * @return true if the current run has been asked to stop
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * Asks the current run to pause at the end of the generation being 
+     * evaluated (in steady state mode before the next offspring is bred), 
+     * until resume or cancel is called.
+     */
+    public void pause() {
+        paused = true;
+    }
+    
+    /**
+     * Lets a paused run carry on.
+     */
+    public void resume() {
+        synchronized(pauseLock){
+            paused = false;
+            pauseLock.notifyAll();
+        }
+    }
+    
+    /**
+     * @return true if the run has been asked to pause
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+    
+    /**
+     * @return true if Chromosome objects are reused between generations
+     */
+    public boolean isPooling() {
+        return pooling;
+    }
+    
+    /**
+     * Turns on reusing the Chromosome objects that are not selected into 
+     * the breed population for the offspring of the next generation, rather 
+     * than creating new ones and leaving the old ones to the garbage 
+     * collector.  For the DoubleGenome, IntGenome and BitGenome classes the 
+     * arrays holding the genes are reused as well, so that once the run has 
+     * got going hardly any memory is allocated for each generation.  For a 
+     * Chromosome with a list of Gene objects the list is reused but the 
+     * genes are still cloned.
+     * 
+     * Only turn this on if nothing outside the GeneticAlgorithm keeps hold 
+     * of a Chromosome it has been given to evaluate (such as in 
+     * calculateFitness or an IBatchEvaluator), as the Chromosome may be 
+     * changed into a different offspring in the next generation.  The breed 
+     * population is never reused.  Pooling is not used in steady state mode.
+     * 
+     * @param pooling true to reuse Chromosome objects
+     */
+    public void setPooling(boolean pooling) {
+        this.pooling = pooling;
+    }
+    
+    /**
+     * @return the strategy choosing the parents of each offspring, or null 
+     * if each member of the breed population is bred in turn with a random 
+     * partner
+     */
+    public ISelectionStrategy getSelectionStrategy() {
+        return selectionStrategy;
+    }
+    
+    /**
+     * Sets the strategy used to choose the parents of each offspring from 
+     * the breed population, such as TournamentSelection, RouletteSelection 
+     * or RankSelection.  The strategy is not used in steady state mode.
+     * 
+     * @param selectionStrategy the strategy, null to breed each member of 
+     * the breed population in turn with a random partner
+     */
+    public void setSelectionStrategy(ISelectionStrategy selectionStrategy) {
+        this.selectionStrategy = selectionStrategy;
+    }
+    
+    /**
+     * @return the batch evaluator, or null if each Chromosome is evaluated 
+     * on its own
+     */
+    public IBatchEvaluator getBatchEvaluator() {
+        return batchEvaluator;
+    }
+    
+    /**
+     * Sets an IBatchEvaluator to calculate the fitness of the candidate 
+     * population in batches instead of calling Chromosome.calculateFitness 
+     * for each Chromosome.  The batch evaluator is not used while 
+     * calibrating to several objectives or in steady state mode, where the 
+     * offspring are evaluated one at a time, and Chromosome.calculateFitness 
+     * is used instead.
+     * 
+     * @param batchEvaluator the batch evaluator, null to evaluate each 
+     * Chromosome on its own
+     */
+    public void setBatchEvaluator(IBatchEvaluator batchEvaluator) {
+        this.batchEvaluator = batchEvaluator;
+    }
+    
+    /**
+     * @return the largest number of Chromosome objects passed to the batch 
+     * evaluator at once, 0 if there is no limit
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    /**
+     * Limits the number of Chromosome objects passed to the batch evaluator 
+     * at once.  By default all of the candidates still to be evaluated are 
+     * passed in a single batch, setting a smaller size allows the batches 
+     * to be evaluated in parallel when there is an executor.
+     * 
+     * @param batchSize the largest batch, 0 for no limit
+     */
+    public void setBatchSize(int batchSize) {
+        if ( batchSize < 0 ){
+            throw new IllegalArgumentException("Batch size cannot be negative: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * @return the surrogate screening the offspring, or null if every 
+     * offspring is evaluated
+     */
+    public ISurrogate getSurrogate() {
+        return surrogate;
+    }
+    
+    /**
+     * Sets an ISurrogate to predict the fitness of the offspring in each 
+     * generation from the Chromosome objects already evaluated.  Only the 
+     * fraction of the offspring predicted to do best (see 
+     * setSurrogateEvaluationFraction) are evaluated, the rest are dropped 
+     * without being evaluated and take no part in the selection.  The 
+     * surrogate is cleared at the start of each run and is not used until 
+     * it has been given the number of samples set by setSurrogateWarmUp.
+     * 
+     * The genomes are passed to the surrogate as the vectors returned by 
+     * Chromosome.getGenomeVector, if this returns null every offspring is 
+     * evaluated.  The surrogate is not used while calibrating to several 
+     * objectives or in steady state mode.
+     * 
+     * @param surrogate the surrogate, null to evaluate every offspring
+     */
+    public void setSurrogate(ISurrogate surrogate) {
+        this.surrogate = surrogate;
+    }
+    
+    /**
+     * @return the fraction of the offspring evaluated each generation when 
+     * a surrogate is in use
+     */
+    public double getSurrogateEvaluationFraction() {
+        return surrogateEvaluationFraction;
+    }
+    
+    /**
+     * @param fraction the fraction of the offspring to evaluate each 
+     * generation when a surrogate is in use, greater than 0 and up to 1
+     */
+    public void setSurrogateEvaluationFraction(double fraction) {
+        if ( !(fraction > 0.0 && fraction <= 1.0) ){
+            throw new IllegalArgumentException("Fraction must be greater than 0 and at most 1: " + fraction);
+        }
+        this.surrogateEvaluationFraction = fraction;
+    }
+    
+    /**
+     * @return the number of evaluated offspring the surrogate is given 
+     * before it is used, 0 for the size of the candidate population
+     */
+    public int getSurrogateWarmUp() {
+        return surrogateWarmUp;
+    }
+    
+    /**
+     * Sets the number of evaluated offspring the surrogate is given at the 
+     * start of a run before any offspring are screened.  The samples are 
+     * counted as they are given to the surrogate, so a surrogate that only 
+     * keeps its most recent samples is still used once it has been given 
+     * this many.
+     * 
+     * @param surrogateWarmUp the number of samples, 0 for the size of the 
+     * candidate population
+     */
+    public void setSurrogateWarmUp(int surrogateWarmUp) {
+        if ( surrogateWarmUp < 0 ){
+            throw new IllegalArgumentException("Surrogate warm up cannot be negative: " + surrogateWarmUp);
+        }
+        this.surrogateWarmUp = surrogateWarmUp;
+    }
+    
+    /**
+     * @return the number of offspring dropped by the surrogate without 
+     * being evaluated in the current or last run
+     */
+    public long getSurrogateScreenedCount() {
+        SurrogateScreen screen = surrogateScreen;
+        return screen == null ? 0 : screen.getScreenedCount();
+    }
+    
+    /**
+     * @return the mean absolute difference between the fitness predicted by 
+     * the surrogate and the calculated fitness of the offspring evaluated in 
+     * the current or last run, NaN if there have been no predictions
+     */
+    public double getSurrogateError() {
+        SurrogateScreen screen = surrogateScreen;
+        return screen == null ? Double.NaN : screen.getMeanAbsoluteError();
+    }
+    
+    /**
+     * @return the local search refining the best members of the breed 
+     * population, or null if none is in use
+     */
+    public ILocalSearch getLocalSearch() {
+        return localSearch;
+    }
+    
+    /**
+     * Sets an ILocalSearch to refine the best members of the breed 
+     * population every few generations, making this a memetic algorithm.  
+     * The searches run in parallel, each starting from one of the best 
+     * members (see setLocalSearchCount) and allowed a limited number of 
+     * evaluations (see setLocalSearchEvaluations).  Each member is replaced 
+     * by the best Chromosome its search finds.  The evaluations made by the 
+     * searches count towards the evaluation count of the run.
+     * 
+     * The local search is not used while calibrating to several objectives 
+     * or in steady state mode.
+     * 
+     * @param localSearch the local search, null to turn it off
+     */
+    public void setLocalSearch(ILocalSearch localSearch) {
+        this.localSearch = localSearch;
+    }
+    
+    /**
+     * @return the number of generations between local searches
+     */
+    public int getLocalSearchInterval() {
+        return localSearchInterval;
+    }
+    
+    /**
+     * @param interval the number of generations between local searches, 
+     * the first is made after this many generations
+     */
+    public void setLocalSearchInterval(int interval) {
+        if ( interval < 1 ){
+            throw new IllegalArgumentException("Interval must be at least 1: " + interval);
+        }
+        this.localSearchInterval = interval;
+    }
+    
+    /**
+     * @return the number of the best members of the breed population 
+     * searched from
+     */
+    public int getLocalSearchCount() {
+        return localSearchCount;
+    }
+    
+    /**
+     * @param count the number of the best members of the breed population 
+     * to search from each time
+     */
+    public void setLocalSearchCount(int count) {
+        if ( count < 1 ){
+            throw new IllegalArgumentException("Count must be at least 1: " + count);
+        }
+        this.localSearchCount = count;
+    }
+    
+    /**
+     * @return the number of evaluations each local search may make
+     */
+    public int getLocalSearchEvaluations() {
+        return localSearchEvaluations;
+    }
+    
+    /**
+     * @param evaluations the number of evaluations each local search may 
+     * make
+     */
+    public void setLocalSearchEvaluations(int evaluations) {
+        if ( evaluations < 1 ){
+            throw new IllegalArgumentException("Evaluations must be at least 1: " + evaluations);
+        }
+        this.localSearchEvaluations = evaluations;
+    }
+    
+    /**
+     * @return true if the generations are streamed rather than held in 
+     * memory
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+    
+    /**
+     * Streams each generation through breeding, evaluation and selection 
+     * rather than breeding the whole candidate population, evaluating it 
+     * and then selecting from it.  The offspring are bred one at a time onto 
+     * a bounded queue (see setStreamingQueueSize), evaluated by the worker 
+     * threads as they arrive and offered to a selection that only keeps the 
+     * best.  Memory then depends on the breed population and the queue 
+     * rather than the candidate population, which can be as large as needed, 
+     * and evaluation starts as soon as the first offspring is bred.  The 
+     * results are exactly the same as without streaming.
+     * 
+     * The candidate population is left empty, apart from any migrants added 
+     * by an IslandModel or DistributedWorker which are evaluated and offered 
+     * after the offspring, and the diversity of the generation statistics 
+     * is NaN.  The surrogate, batch evaluator and 
+     * pooling are not used when streaming, and streaming is not used while 
+     * calibrating to several objectives.
+     * 
+     * @param streaming true to stream the generations
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+    
+    /**
+     * @return true if the candidate population is held off the heap
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+    
+    /**
+     * Holds the candidate population in memory outside the Java heap rather 
+     * than as Chromosome objects, for screening millions of candidates a 
+     * generation.  Each candidate takes 8 bytes for its fitness and for each 
+     * of its values.  The offspring are bred, mutated and evaluated straight 
+     * into their records and only the breed population is held as Chromosome 
+     * objects, the sub class is used as a view of each record in turn to 
+     * populate, mutate and evaluate it.  The results are exactly the same as 
+     * with the candidates on the heap.  The memory outside the heap is 
+     * limited to the maximum heap size unless the JVM is started with 
+     * -XX:MaxDirectMemorySize.
+     * 
+     * Only a GeneticAlgorithm created with a DoubleGenome can hold its 
+     * candidates off the heap.  The candidate population is left empty, 
+     * apart from any migrants added by an IslandModel or DistributedWorker 
+     * which are selected from after the offspring, and the diversity of the 
+     * generation statistics is NaN.  The surrogate, 
+     * batch evaluator, pooling and streaming are not used, and the candidates 
+     * are held on the heap while calibrating to several objectives.
+     * 
+     * @param offHeap true to hold the candidate population off the heap
+     */
+    public void setOffHeap(boolean offHeap) {
+        if ( offHeap && !(chromosome instanceof DoubleGenome) ){
+            throw new IllegalStateException("Only a DoubleGenome can be held off the heap, not " 
+                    + chromosome.getClass().getName());
+        }
+        this.offHeap = offHeap;
+    }
+    
+    /**
+     * @return the number of offspring that can wait for evaluation when 
+     * streaming
+     */
+    public int getStreamingQueueSize() {
+        return streamingQueueSize;
+    }
+    
+    /**
+     * @param size the number of offspring that can wait for evaluation when 
+     * streaming, once the queue is full breeding waits for the evaluation 
+     * to catch up
+     */
+    public void setStreamingQueueSize(int size) {
+        if ( size < 1 ){
+            throw new IllegalArgumentException("Queue size must be at least 1: " + size);
+        }
+        this.streamingQueueSize = size;
+    }
+    
+    /**
+     * @return the cache of fitness values or null if caching is turned off
+     */
+    public FitnessCache getFitnessCache() {
+        return fitnessCache;
+    }
+    
+    /**
+     * Turns on caching of fitness values so that a Chromosome identical to 
+     * one already evaluated (in this or an earlier generation) is not 
+     * evaluated again.  The cache holds at most the given number of values, 
+     * evicting the least recently used.  A size of 0 turns caching off.
+     * 
+     * @param size the maximum number of fitness values to cache
+     */
+    public void setFitnessCacheSize(int size) {
+        if ( size < 0 ){
+            throw new IllegalArgumentException("Cache size cannot be negative: " + size);
+        }
+        this.fitnessCache = size == 0 ? null : new FitnessCache(size);
+    }
+    
+    void reportError(Exception e){
+        if ( errorListeners.isEmpty() ){
+            Logger.getGlobal().log(Level.SEVERE, e.getMessage());
+        }else{
+            for (IErrorListener listener : errorListeners) {
+                listener.catchError(e);
+            }
+        }
+    }
+    
+    /**
+     * Adds a listener to be told about each generation as it finishes.
+     * 
+     * @param listener the listener to add
+     */
+    public void addGenerationListener(IGenerationListener listener){
+        monitor.addListener(listener);
+    }
+    
+    public void removeGenerationListener(IGenerationListener listener){
+        monitor.removeListener(listener);
+    }
+    
+    public void clearGenerationListeners(){
+        monitor.clearListeners();
+    }
+    
+    /**
+     * Returns the publisher of a GenerationSnapshot at the end of each 
+     * generation, for following a run from another thread.  The snapshots 
+     * are delivered on threads of their own.  Each subscriber can fall 
+     * behind by the snapshot buffer size, after which new snapshots are 
+     * dropped for that subscriber until it catches up, so a slow subscriber 
+     * never holds up the run.  The publisher carries on from one run to the 
+     * next until it is closed.
+     * 
+     * No snapshots are published in steady state mode, which has no 
+     * generations.
+     * 
+     * @return the publisher of the generation snapshots
+     */
+    public Flow.Publisher<GenerationSnapshot> getGenerationPublisher(){
+        synchronized(publisherLock){
+            if ( generationPublisher == null ){
+                generationPublisher = new GenerationPublisher(this, snapshotBufferSize);
+                monitor.setPublisher(generationPublisher);
+            }
+            return generationPublisher;
+        }
+    }
+    
+    /**
+     * Completes the subscribers of the generation publisher.  The next call 
+     * to getGenerationPublisher returns a new publisher.
+     */
+    public void closeGenerationPublisher(){
+        synchronized(publisherLock){
+            if ( generationPublisher != null ){
+                monitor.setPublisher(null);
+                generationPublisher.close();
+                generationPublisher = null;
+            }
+        }
+    }
+    
+    /**
+     * @return the number of generation snapshots the current publisher has 
+     * dropped because a subscriber had fallen behind, counted once for each 
+     * subscriber
+     */
+    public long getDroppedSnapshotCount(){
+        synchronized(publisherLock){
+            return generationPublisher == null ? 0 : generationPublisher.getDroppedCount();
+        }
+    }
+    
+    /**
+     * @return the number of members of the breed population copied into 
+     * each generation snapshot
+     */
+    public int getSnapshotEliteSize() {
+        return snapshotEliteSize;
+    }
+    
+    /**
+     * @param snapshotEliteSize the number of members of the breed 
+     * population copied into each generation snapshot, best first
+     */
+    public void setSnapshotEliteSize(int snapshotEliteSize) {
+        if ( snapshotEliteSize < 0 ){
+            throw new IllegalArgumentException("Snapshot elite size cannot be negative: " + snapshotEliteSize);
+        }
+        this.snapshotEliteSize = snapshotEliteSize;
+    }
+    
+    /**
+     * @return the number of generation snapshots each subscriber can fall 
+     * behind by
+     */
+    public int getSnapshotBufferSize() {
+        synchronized(publisherLock){
+            return snapshotBufferSize;
+        }
+    }
+    
+    /**
+     * Sets the number of generation snapshots each subscriber can fall 
+     * behind by before new snapshots are dropped.  It must be set before 
+     * the generation publisher is first asked for.
+     * 
+     * @param snapshotBufferSize the number of snapshots to buffer
+     */
+    public void setSnapshotBufferSize(int snapshotBufferSize) {
+        if ( snapshotBufferSize < 1 ){
+            throw new IllegalArgumentException("Snapshot buffer size must be at least 1: " + snapshotBufferSize);
+        }
+        synchronized(publisherLock){
+            if ( generationPublisher != null ){
+                throw new IllegalStateException("The generation publisher has already been created");
+            }
+            this.snapshotBufferSize = snapshotBufferSize;
+        }
+    }
+    
+    /**
+     * Returns the statistics of the last generation to finish.  The mean 
+     * and worst fitness and the diversity need a pass over the candidate 
+     * population so they are only worked out while an IGenerationListener 
+     * is added or Java Flight Recorder is recording generation events, 
+     * otherwise they are NaN.
+     * 
+     * @return the statistics of the last generation to finish, or null if 
+     * no generation has finished in the current run
+     */
+    public GenerationStatistics getLastGenerationStatistics(){
+        return monitor.getLastStatistics();
+    }
+    
+    /**
+     * @return the histogram of the time taken by each fitness calculation 
+     * in the current or last run
+     */
+    public LatencyHistogram getEvaluationLatency(){
+        return monitor.getEvaluationLatency();
+    }
+    
+    /**
+     * @return the number of the generation currently being evaluated, 
+     * starting at 0 for the initial population
+     */
+    public int getGeneration(){
+        return generation;
+    }
+    
+    /**
+     * Adds a condition that stops the run before all of the generations 
+     * have been run.  The conditions are tested at the end of each 
+     * generation and the run stops as soon as any one of them is satisfied.  
+     * Use AllTermination to stop only when several conditions are satisfied 
+     * together.  Conditions are not tested in steady state mode.
+     * 
+     * @param condition the condition to add
+     */
+    public void addTerminationCondition(ITerminationCondition condition){
+        this.terminationConditions.add(condition);
+    }
+    
+    public void removeTerminationCondition(ITerminationCondition condition){
+        this.terminationConditions.remove(condition);
+    }
+    
+    public void clearTerminationConditions(){
+        this.terminationConditions.clear();
+    }
+    
+    /**
+     * @return a description of why the last run stopped, or null if no run 
+     * has finished
+     */
+    public String getTerminationReason(){
+        return terminationReason;
+    }
+    
+    /**
+     * @return the termination condition that stopped the last run, or null 
+     * if the run was not stopped by a condition
+     */
+    public ITerminationCondition getTerminationCondition(){
+        return terminationCondition;
+    }
+    
+    public void addErrorListener(IErrorListener listener){
+        this.errorListeners.add(listener);
+    }
+    
+    public void removeErrorListener(IErrorListener listener){
+        this.errorListeners.remove(listener);
+    }
+    
+    public void clearErrorListeners(){
+        this.errorListeners.clear();
+    }
+
+    /**
+     * @return the breedPopulation
+     */
+    public List<Chromosome> getBreedPopulation() {
+        return breedPopulation;
+    }
+    
+    /**
+     * The random number stream of each thread, reused for every offspring 
+     * the thread creates.
+     */
+    private static final class StreamBinding{
+        
+        final StreamRandom stream = new StreamRandom(0L, 0L);
+        //the stream returned by getRandom, null when no offspring is being 
+        //created on this thread
+        Random bound = null;
+        
+        void bind(long seed, long index){
+            stream.reseed(seed, index);
+            bound = stream;
+        }
+    }
+    
+    /**
+     * ThreadFactory for the threads created by the GeneticAlgorithm.  The 
+     * threads are daemon threads so that an abandoned run does not keep the 
+     * JVM alive.
+     */
+    static class DaemonThreadFactory implements ThreadFactory{
+        
+        private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+        private final AtomicInteger threadCounter = new AtomicInteger();
+        private final int pool = POOL_COUNTER.incrementAndGet();
+        private final String role;
+        
+        DaemonThreadFactory(String role){
+            this.role = role;
+        }
+        
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "GeneticAlgorithm-" + pool + "-" + role + "-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
     }
-	
 }
@@ -0,0 +1,38 @@
+/**
+ * Key identifying the content of a Chromosome's genome, used to look up 
+ * fitness values that have already been calculated.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.Objects;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class GenomeKey {
+    
+    //a list of Genes or a primitive array depending on the Chromosome
+    private final Object genome;
+    private final int hash;
+    
+    GenomeKey(Object genome, int hash){
+        this.genome = genome;
+        this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if ( o instanceof GenomeKey ){
+            GenomeKey other = (GenomeKey) o;
+            return hash == other.hash && Objects.deepEquals(genome, other.genome);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+    
+}
@@ -0,0 +1,31 @@
+/**
+ * Local search that repeatedly mutates the best Chromosome found so far, 
+ * with Chromosome.mutate, and moves to the mutant if it is better.  For a 
+ * Chromosome with a list of Gene objects each neighbour differs from the 
+ * current one by a single Gene.mutate, so this works with any Chromosome.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class HillClimbing implements ILocalSearch {
+
+    @Override
+    public Chromosome improve(Chromosome start, Neighbourhood neighbourhood) throws Exception {
+        Chromosome best = start;
+        double bestFitness = neighbourhood.getFitness(start);
+        while ( neighbourhood.getEvaluationsLeft() > 0 ){
+            Chromosome candidate = neighbourhood.neighbour(best);
+            candidate.mutate();
+            double fitness = neighbourhood.evaluate(candidate);
+            if ( neighbourhood.isBetter(fitness, bestFitness) ){
+                best = candidate;
+                bestFitness = fitness;
+            }
+        }
+        return best;
+    }
+    
+}
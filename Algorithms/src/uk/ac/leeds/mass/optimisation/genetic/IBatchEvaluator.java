@@ -0,0 +1,33 @@
+/**
+ * Implement this interface and set it on the GeneticAlgorithm object to 
+ * calculate the fitness of many Chromosome objects in one call, instead of 
+ * calling Chromosome.calculateFitness once for each.  This suits models that 
+ * can run several parameter sets together, sharing their setup (such as a 
+ * distance matrix) between them.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.List;
+import uk.ac.leeds.mass.statistics.gof.IGOF;
+
+/**
+ *
+ * @author kirkharland
+ */
+public interface IBatchEvaluator {
+    
+    /**
+     * Calculates the fitness of each of the Chromosome objects given.  If 
+     * the GeneticAlgorithm has an executor the batches may be evaluated on 
+     * several threads at once.
+     * 
+     * @param chromosomes the Chromosome objects to evaluate, which must not 
+     * be changed
+     * @param gof the IGOF set on the GeneticAlgorithm
+     * @return the fitness of each Chromosome in the same order
+     * @throws Exception if the fitness cannot be calculated, the error is 
+     * reported through the IErrorListeners and the run ends
+     */
+    public double[] evaluate(List<Chromosome> chromosomes, IGOF gof) throws Exception;
+    
+}
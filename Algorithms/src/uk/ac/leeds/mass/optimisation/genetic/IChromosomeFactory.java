@@ -0,0 +1,42 @@
+/**
+ * Implement this interface and set it on the GeneticAlgorithm object to 
+ * control how new Chromosome objects are created during the optimisation 
+ * process.  A factory that simply calls the constructors of the Chromosome 
+ * sub class is the cheapest way of creating offspring and avoids any use 
+ * of reflection.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.ArrayList;
+
+/**
+ *
+ * @author kirkharland
+ */
+public interface IChromosomeFactory {
+    
+    /**
+     * Create a new empty Chromosome, the genes will be populated by the 
+     * caller.  The Chromosome should be created using the 
+     * Chromosome(GeneticAlgorithm) constructor.
+     * 
+     * @param parent The calling GeneticAlgorithm Object
+     * @return A new Chromosome Object
+     * @throws InstantiationException if the Chromosome cannot be created
+     */
+    public Chromosome newChromosome(GeneticAlgorithm parent) throws InstantiationException;
+    
+    /**
+     * Create a new Chromosome holding the genes supplied.  The Chromosome 
+     * should be created using the Chromosome(GeneticAlgorithm, ArrayList) 
+     * constructor.
+     * 
+     * @param parent The calling GeneticAlgorithm Object
+     * @param genes The genes for the new Chromosome, these have already been 
+     * cloned and belong to the new Chromosome.
+     * @return A new Chromosome Object
+     * @throws InstantiationException if the Chromosome cannot be created
+     */
+    public Chromosome newChromosome(GeneticAlgorithm parent, ArrayList<Gene> genes) throws InstantiationException;
+    
+}
@@ -0,0 +1,22 @@
+/**
+ * The result of a fitness calculation kept by a Chromosome implementing 
+ * IIncrementalFitness, holding the fitness and anything else needed to 
+ * update it when a few genes change (such as the output matrix of the 
+ * model).  A state must not be changed once it has been returned, as the 
+ * offspring of a Chromosome may update from its state on several threads 
+ * at once.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public interface IFitnessState {
+    
+    /**
+     * @return the fitness of the Chromosome this state was calculated for
+     */
+    public double getFitness();
+    
+}
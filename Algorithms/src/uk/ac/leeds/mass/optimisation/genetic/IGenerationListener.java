@@ -0,0 +1,22 @@
+/**
+ * Implement this interface and attach your object to the GeneticAlgorithm 
+ * object to be told about the progress of the optimisation at the end of 
+ * each generation.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public interface IGenerationListener {
+    
+    /**
+     * Called on the thread running the GeneticAlgorithm once the breed 
+     * population has been selected.  The evolution waits for this method so 
+     * it should return quickly.
+     * 
+     * @param statistics the statistics for the generation that has finished
+     */
+    public void generationComplete(GenerationStatistics statistics);
+}
@@ -0,0 +1,51 @@
+/**
+ * Implement this interface on a Chromosome sub class whose fitness can be 
+ * updated when a few genes change, rather than calculated from scratch.  
+ * This suits models where each gene only affects part of the output, so 
+ * that after a mutation only that part needs to be run again.
+ * 
+ * Each offspring records which genes differ from the first of its parents, 
+ * both from crossover and mutation, and its fitness is calculated by 
+ * updating the state of that parent.  Where the state of the parent is not 
+ * available (such as for the initial population, or a Chromosome whose 
+ * fitness came from the fitness cache or a checkpoint) the fitness is 
+ * calculated from scratch.  Sub classes that change genes other than through 
+ * the mutate, setValue or setBit methods of this package must call 
+ * Chromosome.geneChanged for each gene they change.
+ * 
+ * The incremental path is not used by an IBatchEvaluator or while 
+ * calibrating to several objectives.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import uk.ac.leeds.mass.statistics.gof.IGOF;
+
+/**
+ *
+ * @author kirkharland
+ */
+public interface IIncrementalFitness {
+    
+    /**
+     * Calculates the fitness of this Chromosome from scratch.
+     * 
+     * @param gof the IGOF set on the GeneticAlgorithm
+     * @return the state holding the fitness
+     */
+    public IFitnessState calculateFitnessState(IGOF gof);
+    
+    /**
+     * Calculates the fitness of this Chromosome by updating the state of 
+     * the parent it was bred from.  The state of the parent must not be 
+     * changed.
+     * 
+     * @param gof the IGOF set on the GeneticAlgorithm
+     * @param parentState the state of the parent
+     * @param changedGenes the indexes of the genes that differ from the 
+     * parent in ascending order, the position in the gene list or the 
+     * index of the value or bit for the genome classes
+     * @return the state holding the fitness
+     */
+    public IFitnessState updateFitnessState(IGOF gof, IFitnessState parentState, int[] changedGenes);
+    
+}
@@ -0,0 +1,33 @@
+/**
+ * Implement this interface and set it on the GeneticAlgorithm object to 
+ * refine the best members of the breed population with a local search every 
+ * few generations (a memetic algorithm).  Late in a run the genetic 
+ * algorithm closes in on an optimum slowly, a local search from the best 
+ * Chromosome objects usually gets there in far fewer evaluations.  
+ * HillClimbing works with any Chromosome, CoordinateDescent with a 
+ * DoubleGenome or IntGenome.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public interface ILocalSearch {
+    
+    /**
+     * Searches the neighbourhood of a Chromosome for a better one.  The 
+     * neighbours are created and evaluated through the Neighbourhood, which 
+     * limits the number of evaluations each search may use.  This is called 
+     * from several threads at once, each with its own Neighbourhood, so any 
+     * state must be kept in local variables.
+     * 
+     * @param start the Chromosome to search from, which must not be changed
+     * @param neighbourhood creates and evaluates the neighbours
+     * @return the best Chromosome found, or start if none were better
+     * @throws Exception if the search cannot be carried out, the run stops 
+     * and the exception is reported
+     */
+    public Chromosome improve(Chromosome start, Neighbourhood neighbourhood) throws Exception;
+    
+}
@@ -0,0 +1,38 @@
+/**
+ * Implement this interface and set it on the GeneticAlgorithm object to 
+ * control how the parents of each offspring are chosen from the breed 
+ * population.  Without a strategy every member of the breed population is 
+ * the first parent in turn and is bred with a partner chosen at random.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.Random;
+
+/**
+ *
+ * @author kirkharland
+ */
+public interface ISelectionStrategy {
+    
+    /**
+     * Called once each generation before any parents are selected.  Any 
+     * tables needed to select the parents quickly should be built here.
+     * 
+     * @param fitness the fitness of each member of the breed population, 
+     * which is held best first (when calibrating to several objectives this 
+     * is the value of the first objective and the order is by front)
+     * @param ascending true if smaller fitness values are better
+     */
+    public void prepare(double[] fitness, boolean ascending);
+    
+    /**
+     * Selects a parent.  This may be called from several threads at once 
+     * and must take all of its random numbers from the generator given, so 
+     * that a seeded run gives the same results on any number of threads.
+     * 
+     * @param random the random number generator of the offspring being bred
+     * @return the index of the parent in the breed population
+     */
+    public int select(Random random);
+    
+}
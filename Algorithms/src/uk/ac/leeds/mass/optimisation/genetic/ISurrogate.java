@@ -0,0 +1,44 @@
+/**
+ * Implement this interface and set it on the GeneticAlgorithm object to 
+ * predict the fitness of new offspring from the Chromosome objects already 
+ * evaluated.  Only the offspring predicted to do best are then evaluated 
+ * with Chromosome.calculateFitness, the rest are dropped, so fewer model 
+ * runs are needed each generation.  The genomes are passed as the vectors 
+ * returned by Chromosome.getGenomeVector.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public interface ISurrogate {
+    
+    /**
+     * Adds an evaluated genome to the samples the predictions are made from.
+     * 
+     * @param genome the genome vector, which belongs to the surrogate
+     * @param fitness the fitness calculated for the genome
+     */
+    public void add(double[] genome, double fitness);
+    
+    /**
+     * Predicts the fitness of a genome.  This may be called from several 
+     * threads at once, but never at the same time as add or clear.
+     * 
+     * @param genome the genome vector, which must not be changed
+     * @return the predicted fitness
+     */
+    public double predict(double[] genome);
+    
+    /**
+     * @return the number of samples held
+     */
+    public int size();
+    
+    /**
+     * Removes all of the samples, called at the start of each run.
+     */
+    public void clear();
+    
+}
@@ -0,0 +1,37 @@
+/**
+ * Implement this interface and add your object to the GeneticAlgorithm 
+ * object to stop the optimisation before all of the generations have run.  
+ * The condition is tested at the end of every generation, once the breed 
+ * population has been selected, and the run stops as soon as any of the 
+ * conditions added to the GeneticAlgorithm is satisfied.
+ * 
+ * Conditions may keep track of earlier generations so an object should 
+ * only be added to one GeneticAlgorithm at a time.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public interface ITerminationCondition {
+    
+    /**
+     * Called at the start of each run to clear anything remembered from 
+     * an earlier run.
+     */
+    public void reset();
+    
+    /**
+     * @param ga the GeneticAlgorithm being run
+     * @param statistics the statistics of the generation that has just finished
+     * @return true if the run should stop
+     */
+    public boolean isSatisfied(GeneticAlgorithm ga, GenerationStatistics statistics);
+    
+    /**
+     * @return a human readable description of the condition, used as the 
+     * reason the run stopped
+     */
+    public String getDescription();
+}
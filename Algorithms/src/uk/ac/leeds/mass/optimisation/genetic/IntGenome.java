@@ -0,0 +1,275 @@
+/**
+ * Chromosome holding its genes as a flat array of int values, each with its 
+ * own inclusive lower and upper bound.  Breeding and mutation work directly 
+ * on the arrays so no Gene objects are created.  Suitable for calibrating 
+ * integer parameters or choosing between a number of discrete options.
+ * 
+ * Extend this class, pass the bounds to one of the constructors and 
+ * implement calculateFitness using getValues.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ *
+ * @author kirkharland
+ */
+public abstract class IntGenome extends Chromosome {
+    
+    private int[] values = null;
+    
+    //the bounds are shared by every member of the population
+    private int[] lowerBounds = null;
+    private int[] upperBounds = null;
+    
+    protected IntGenome(){}
+    
+    protected IntGenome(GeneticAlgorithm parent){
+        super(parent);
+    }
+    
+    /**
+     * Creates an IntGenome where every value has the same bounds.
+     * 
+     * @param length the number of values in the genome
+     * @param lowerBound the smallest value allowed
+     * @param upperBound the largest value allowed
+     */
+    protected IntGenome(int length, int lowerBound, int upperBound){
+        this(fill(length, lowerBound), fill(length, upperBound));
+    }
+    
+    /**
+     * Creates an IntGenome with separate bounds for each value.
+     * 
+     * @param lowerBounds the smallest value allowed for each value
+     * @param upperBounds the largest value allowed for each value
+     */
+    protected IntGenome(int[] lowerBounds, int[] upperBounds){
+        if ( lowerBounds.length != upperBounds.length ){
+            throw new IllegalArgumentException("Bounds must be the same length.");
+        }
+        for (int i = 0; i < lowerBounds.length; i++) {
+            if ( lowerBounds[i] > upperBounds[i] ){
+                throw new IllegalArgumentException("Lower bound greater than upper bound at " + i);
+            }
+        }
+        this.lowerBounds = lowerBounds.clone();
+        this.upperBounds = upperBounds.clone();
+        this.values = new int[lowerBounds.length];
+    }
+    
+    private static int[] fill(int length, int value){
+        int[] d = new int[length];
+        Arrays.fill(d, value);
+        return d;
+    }
+
+    @Override
+    protected void initialiseFrom(Chromosome template) {
+        IntGenome t = (IntGenome) template;
+        lowerBounds = t.lowerBounds;
+        upperBounds = t.upperBounds;
+        if ( values == null || values.length != lowerBounds.length ){
+            values = new int[lowerBounds.length];
+        }
+    }
+    
+    /**
+     * Populates the values with random numbers between the bounds.
+     * Override to start the population from somewhere else.
+     */
+    @Override
+    protected void populateGenes() {
+        Random random = getParent().getRandom();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = randomValue(i, random);
+        }
+    }
+    
+    /**
+     * Uniform crossover, each value is taken from one or other of the 
+     * parents.  The random bits for 64 values are drawn at once.
+     */
+    @Override
+    Chromosome breed(Chromosome partner, Chromosome spare) throws InstantiationException {
+        int[] other = ((IntGenome) partner).values;
+        if ( other.length != values.length ){
+            throw new IllegalArgumentException("Cannot breed genomes of length " + values.length + " and " + other.length);
+        }
+        IntGenome child = (IntGenome) newOffspring(spare);
+        int[] bred = child.values;
+        Random random = getParent().getRandom();
+        boolean track = getParent().isIncremental();
+        if ( track ){
+            child.trackChangesFrom(this);
+        }
+        long mask = 0;
+        for (int i = 0; i < bred.length; i++) {
+            if ( (i & 63) == 0 ){mask = random.nextLong();}
+            if ( (mask & (1L << (i & 63))) != 0 ){
+                bred[i] = values[i];
+            }else{
+                bred[i] = other[i];
+                if ( track && other[i] != values[i] ){
+                    child.geneChanged(i);
+                }
+            }
+        }
+        return child;
+    }
+    
+    @Override
+    Chromosome copyTo(GeneticAlgorithm owner) throws InstantiationException {
+        IntGenome copy = (IntGenome) newInstance(owner);
+        System.arraycopy(values, 0, copy.values, 0, values.length);
+        copy.copyFitness(this);
+        return copy;
+    }
+    
+    @Override
+    Serializable exportGenome() {
+        return values.clone();
+    }
+
+    @Override
+    Chromosome importGenome(GeneticAlgorithm owner, Object genome) throws InstantiationException {
+        int[] imported = (int[]) genome;
+        if ( imported.length != values.length ){
+            throw new IllegalArgumentException("Cannot import genome of length " + imported.length);
+        }
+        IntGenome chromosome = (IntGenome) newInstance(owner);
+        System.arraycopy(imported, 0, chromosome.values, 0, imported.length);
+        return chromosome;
+    }
+    
+    /**
+     * Randomly picks a value and mutates it.
+     */
+    @Override
+    public void mutate() {
+        if ( values.length > 0 ){
+            Random random = getParent().getRandom();
+            int index = random.nextInt(values.length);
+            mutateValue(index, random);
+            geneChanged(index);
+        }
+    }
+    
+    /**
+     * Mutates a single value, by default the value is replaced with a 
+     * random number between its bounds.  Override for a different mutation 
+     * operator, the new value must stay within the bounds.
+     * 
+     * @param index the index of the value to mutate
+     * @param random the random number generator to use
+     */
+    protected void mutateValue(int index, Random random){
+        values[index] = randomValue(index, random);
+    }
+    
+    private int randomValue(int index, Random random){
+        long range = (long)upperBounds[index] - lowerBounds[index] + 1;
+        if ( range <= Integer.MAX_VALUE ){
+            return lowerBounds[index] + random.nextInt((int)range);
+        }
+        return (int)(lowerBounds[index] + (long)(random.nextDouble() * range));
+    }
+    
+    /**
+     * Returns the values of this genome.  The array is returned directly 
+     * for speed and must not be modified once the fitness has been 
+     * calculated.
+     * 
+     * @return the values of this genome
+     */
+    public int[] getValues(){
+        return values;
+    }
+    
+    /**
+     * @return the values of this genome as double values
+     */
+    @Override
+    public double[] getGenomeVector(){
+        double[] vector = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            vector[i] = values[i];
+        }
+        return vector;
+    }
+    
+    /**
+     * @param index the index of the value
+     * @return the value at the index
+     */
+    public int getValue(int index){
+        return values[index];
+    }
+    
+    /**
+     * @param index the index of the value
+     * @param value the value to set, it is not checked against the bounds
+     */
+    protected void setValue(int index, int value){
+        values[index] = value;
+        geneChanged(index);
+    }
+    
+    /**
+     * @return the number of values in this genome
+     */
+    public int getLength(){
+        return values.length;
+    }
+    
+    /**
+     * @param index the index of the value
+     * @return the smallest value allowed at the index
+     */
+    public int getLowerBound(int index){
+        return lowerBounds[index];
+    }
+    
+    /**
+     * @param index the index of the value
+     * @return the largest value allowed at the index
+     */
+    public int getUpperBound(int index){
+        return upperBounds[index];
+    }
+    
+    @Override
+    public String toString(){
+        StringBuilder s = new StringBuilder("Genes: ");
+        for (int i = 0; i < values.length; i++) {
+            s.append(values[i]).append(' ');
+        }
+        s.append("Fitness: ").append(getFitness());
+        return s.toString();
+    }
+    
+    @Override
+    public boolean equals(Object o){
+        if ( o instanceof IntGenome ){
+            return Arrays.equals(values, ((IntGenome)o).values);
+        }
+        return false;
+    }
+
+    @Override
+    GenomeKey genomeKey(boolean copy) {
+        return new GenomeKey(copy ? values.clone() : values, Arrays.hashCode(values));
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 5;
+        hash = 47 * hash + Arrays.hashCode(values);
+        return hash;
+    }
+    
+}
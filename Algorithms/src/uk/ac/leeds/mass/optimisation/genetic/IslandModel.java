@@ -0,0 +1,356 @@
+/**
+ * Island model genetic algorithm.  A number of independent GeneticAlgorithm 
+ * populations (islands) are evolved at the same time, each on its own thread, 
+ * and every few generations the best Chromosome objects from each island are 
+ * copied to its neighbours.  Keeping the populations apart maintains 
+ * diversity, while migration lets good solutions spread between them.
+ * 
+ * Each island is an ordinary GeneticAlgorithm created from the same 
+ * Chromosome, so the population sizes, mutation rate, termination 
+ * conditions and so on can be set on the islands individually through 
+ * getIslands.  An island that is cancelled, or whose termination conditions 
+ * are satisfied, stops and takes no further part in migration while the 
+ * others carry on.  Pausing an island holds up the others at the next 
+ * migration.  The number of generations and the IGOF are set on the 
+ * IslandModel and apply to every island.  Islands cannot run in steady 
+ * state mode, write checkpoints or carry on from a checkpoint.
+ * 
+ * This class implements the runnable interface and can be run as a separate 
+ * thread.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Phaser;
+import uk.ac.leeds.mass.statistics.gof.IGOF;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class IslandModel implements Runnable{
+    
+    /**
+     * Each island sends its migrants to the next island, the last island 
+     * sending to the first.
+     */
+    public static final int TOPOLOGY_RING = 0;
+    /**
+     * Each island sends its migrants to every other island.
+     */
+    public static final int TOPOLOGY_FULLY_CONNECTED = 1;
+    
+    private final List<GeneticAlgorithm> islands = new ArrayList<GeneticAlgorithm>();
+    
+    private int generations = 200;
+    private int migrationInterval = 10;
+    private int migrationSize = 2;
+    private int topology = TOPOLOGY_RING;
+    
+    //islands that have stopped take no part in migration
+    private volatile boolean[] stopped = new boolean[0];
+    
+    /**
+     * Creates an IslandModel with one island for each available processor.
+     * 
+     * @param chromosome A valid object which extends the abstract Chromosome class
+     */
+    public IslandModel(Chromosome chromosome){
+        this(chromosome, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Creates an IslandModel with randomly seeded islands.
+     * 
+     * @param chromosome A valid object which extends the abstract Chromosome class
+     * @param islandCount the number of islands
+     */
+    public IslandModel(Chromosome chromosome, int islandCount){
+        this(chromosome, islandCount, new Random().nextLong());
+    }
+    
+    /**
+     * Creates an IslandModel using a set seed to allow the run to be 
+     * reproduced.  The seed of each island is derived from this seed.
+     * 
+     * @param chromosome A valid object which extends the abstract Chromosome class
+     * @param islandCount the number of islands
+     * @param seed valid long value used to seed the islands
+     */
+    public IslandModel(Chromosome chromosome, int islandCount, long seed){
+        if ( islandCount < 1 ){
+            throw new IllegalArgumentException("There must be at least one island: " + islandCount);
+        }
+        Random seeds = new Random(seed);
+        for (int i = 0; i < islandCount; i++) {
+            islands.add(new GeneticAlgorithm(chromosome, seeds.nextLong()));
+        }
+    }
+    
+    /**
+     * Runs all of the islands to completion.  Errors on an island are 
+     * reported through that island's IErrorListeners and stop that island 
+     * only, the remaining islands carry on.  If the calling thread is 
+     * interrupted every island is cancelled, and this returns once they 
+     * have all stopped.
+     * 
+     * @throws IllegalStateException if an island is set to run in steady 
+     * state mode, write checkpoints or carry on from a checkpoint
+     */
+    @Override
+    public void run(){
+        
+        for (int i = 0; i < islands.size(); i++) {
+            GeneticAlgorithm island = islands.get(i);
+            if ( island.isSteadyState() ){
+                throw new IllegalStateException("Island " + i + " cannot run in steady state mode");
+            }
+            if ( island.getCheckpointFile() != null || island.isResuming() ){
+                throw new IllegalStateException("Island " + i + " cannot use checkpoints");
+            }
+        }
+        for (GeneticAlgorithm island : islands) {
+            island.setGenerations(generations);
+        }
+        stopped = new boolean[islands.size()];
+        
+        //the phaser holds the islands together at each migration, the
+        //migration itself is done by the last island to arrive
+        final Phaser phaser = new Phaser(islands.size()){
+            @Override
+            protected boolean onAdvance(int phase, int registeredParties) {
+                if ( registeredParties > 0 ){
+                    migrate();
+                }
+                return registeredParties == 0;
+            }
+        };
+        
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < islands.size(); i++) {
+            final int index = i;
+            Thread t = new Thread(new Runnable(){
+                @Override
+                public void run() {
+                    runIsland(index, phaser);
+                }
+            }, "IslandModel-island-" + i);
+            threads.add(t);
+            t.start();
+        }
+        
+        boolean interrupted = false;
+        for (Thread t : threads) {
+            while ( t.isAlive() ){
+                try{
+                    t.join();
+                }catch(InterruptedException e){
+                    //stop every island and still wait for them, the island 
+                    //threads must not outlive the model
+                    if ( !interrupted ){
+                        interrupted = true;
+                        for (GeneticAlgorithm island : islands) {
+                            island.cancel();
+                        }
+                        for (Thread other : threads) {
+                            other.interrupt();
+                        }
+                    }
+                }
+            }
+        }
+        if ( interrupted ){
+            Thread.currentThread().interrupt();
+        }
+        
+    }
+    
+    /**
+     * Evolves a single island, stopping at the phaser every migration 
+     * interval, until it has run every generation, its termination 
+     * conditions are satisfied, it is cancelled or an error occurs.
+     */
+    private void runIsland(int index, Phaser phaser){
+        GeneticAlgorithm island = islands.get(index);
+        boolean ok = false;
+        island.startRun();
+        try{
+            if ( island.createInitialPopulation() ){
+                ok = true;
+                for (int i = 0; i < generations + 1 && ok; i++) {
+                    ok = island.awaitResume() && island.evaluateAndSelect();
+                    if ( ok && i < generations ){
+                        if ( island.isTerminated() ){break;}
+                        ok = island.breedCandidatePopulation();
+                        //the migrants join the new candidate population
+                        if ( ok && (i + 1) % migrationInterval == 0 ){
+                            phaser.arriveAndAwaitAdvance();
+                        }
+                    }
+                }
+            }
+        }finally{
+            //the island leaves the migration before the phaser can advance
+            stopped[index] = true;
+            island.recordTermination(ok);
+            island.finishRun();
+            phaser.arriveAndDeregister();
+        }
+    }
+    
+    /**
+     * Copies the best members of each island's breed population into the 
+     * candidate population of the islands it is connected to.  Only called 
+     * while every island is waiting at the phaser.
+     */
+    private void migrate(){
+        int n = islands.size();
+        for (int source = 0; source < n; source++) {
+            if ( stopped[source] ){continue;}
+            List<Chromosome> elite = islands.get(source).getBreedPopulation();
+            int count = Math.min(migrationSize, elite.size());
+            
+            for (int target = 0; target < n; target++) {
+                if ( target == source || stopped[target] ){continue;}
+                if ( topology == TOPOLOGY_RING && target != (source + 1) % n ){continue;}
+                
+                GeneticAlgorithm island = islands.get(target);
+                for (int i = 0; i < count; i++) {
+                    try{
+                        island.getCandidatePopulation().add(elite.get(i).copyTo(island));
+                    }catch(InstantiationException e){
+                        island.reportError(e);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * @return the best Chromosome found on any of the islands or null if 
+     * the model has not been run
+     */
+    public Chromosome getBestChromosome(){
+        List<Chromosome> best = new ArrayList<Chromosome>();
+        for (GeneticAlgorithm island : islands) {
+            Chromosome c = island.bestOf(island.getBreedPopulation());
+            if ( c != null ){
+                best.add(c);
+            }
+        }
+        return islands.get(0).bestOf(best);
+    }
+    
+    /**
+     * @return the best fitness found on any of the islands, NaN if the 
+     * model has not been run
+     */
+    public double getBestFitness(){
+        Chromosome best = getBestChromosome();
+        return best == null ? Double.NaN : best.getFitness();
+    }
+    
+    /**
+     * @return the islands, which can be used to change their individual 
+     * settings before the model is run
+     */
+    public List<GeneticAlgorithm> getIslands(){
+        return Collections.unmodifiableList(islands);
+    }
+
+    /**
+     * @return the generations
+     */
+    public int getGenerations() {
+        return generations;
+    }
+
+    /**
+     * @param generations the generations to set
+     */
+    public void setGenerations(int generations) {
+        this.generations = generations;
+    }
+
+    /**
+     * @return the number of generations between migrations
+     */
+    public int getMigrationInterval() {
+        return migrationInterval;
+    }
+
+    /**
+     * @param migrationInterval the number of generations between migrations
+     */
+    public void setMigrationInterval(int migrationInterval) {
+        if ( migrationInterval < 1 ){
+            throw new IllegalArgumentException("Migration interval must be at least 1: " + migrationInterval);
+        }
+        this.migrationInterval = migrationInterval;
+    }
+
+    /**
+     * @return the number of Chromosome objects each island sends to each 
+     * island it is connected to
+     */
+    public int getMigrationSize() {
+        return migrationSize;
+    }
+
+    /**
+     * @param migrationSize the number of Chromosome objects each island sends 
+     * to each island it is connected to
+     */
+    public void setMigrationSize(int migrationSize) {
+        this.migrationSize = migrationSize;
+    }
+
+    /**
+     * @return the topology, one of the TOPOLOGY constants
+     */
+    public int getTopology() {
+        return topology;
+    }
+
+    /**
+     * @param topology the topology to set, one of the TOPOLOGY constants
+     */
+    public void setTopology(int topology) {
+        if ( topology != TOPOLOGY_RING && topology != TOPOLOGY_FULLY_CONNECTED ){
+            throw new IllegalArgumentException("Unknown topology: " + topology);
+        }
+        this.topology = topology;
+    }
+    
+    /**
+     * Sets the IGOF used to calculate the fitness on every island.
+     * 
+     * @param gof the gof to set
+     */
+    public void setGof(IGOF gof){
+        for (GeneticAlgorithm island : islands) {
+            island.setGof(gof);
+        }
+    }
+    
+    /**
+     * Adds the listener to every island.
+     * 
+     * @param listener the listener to add
+     */
+    public void addErrorListener(IErrorListener listener){
+        for (GeneticAlgorithm island : islands) {
+            island.addErrorListener(listener);
+        }
+    }
+    
+    public void removeErrorListener(IErrorListener listener){
+        for (GeneticAlgorithm island : islands) {
+            island.removeErrorListener(listener);
+        }
+    }
+    
+}
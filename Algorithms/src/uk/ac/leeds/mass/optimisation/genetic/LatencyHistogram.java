@@ -0,0 +1,127 @@
+/**
+ * Histogram of the time taken by the fitness calculations.  Times are 
+ * counted in logarithmic buckets, eight to each power of two, so the 
+ * percentiles are accurate to within about 12% whatever the range of the 
+ * times.  Recording a time is a couple of atomic additions so it is safe 
+ * and cheap to call from several evaluation threads at once.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    
+    /**
+     * Records the time taken by one fitness calculation.
+     * 
+     * @param nanos the time in nanoseconds
+     */
+    public void record(long nanos){
+        if ( nanos < 0 ){nanos = 0;}
+        counts.incrementAndGet(index(nanos));
+        count.incrementAndGet();
+        total.addAndGet(nanos);
+        long m = max.get();
+        while ( nanos > m && !max.compareAndSet(m, nanos) ){
+            m = max.get();
+        }
+    }
+    
+    //values below 8 have a bucket each, above that there are 8 buckets 
+    //between each power of two
+    private static int index(long value){
+        if ( value < SUB_BUCKETS ){return (int)value;}
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+    
+    //the largest value counted in the bucket
+    private static long upperBound(int index){
+        if ( index < SUB_BUCKETS ){return index;}
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((long)(SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+    
+    /**
+     * @return the number of times recorded
+     */
+    public long getCount(){
+        return count.get();
+    }
+    
+    /**
+     * @return the mean time in nanoseconds, 0 if nothing has been recorded
+     */
+    public double getMean(){
+        long n = count.get();
+        return n == 0 ? 0.0 : (double)total.get() / n;
+    }
+    
+    /**
+     * @return the longest time recorded in nanoseconds
+     */
+    public long getMax(){
+        return max.get();
+    }
+    
+    /**
+     * Returns the time in nanoseconds that the given percentage of the 
+     * fitness calculations took no longer than.
+     * 
+     * @param percentile the percentile between 0 and 100
+     * @return the upper bound of the bucket holding the percentile, 0 if 
+     * nothing has been recorded
+     */
+    public long getPercentile(double percentile){
+        if ( percentile < 0 || percentile > 100 ){
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        long n = count.get();
+        if ( n == 0 ){return 0;}
+        long target = Math.max(1, (long)Math.ceil(n * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if ( seen >= target ){
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+    
+    /**
+     * Clears all of the recorded times.
+     */
+    public void reset(){
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+    
+    @Override
+    public String toString(){
+        return String.format("n=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms", 
+                getCount(), getMean() / 1e6, getPercentile(50) / 1e6, getPercentile(90) / 1e6, 
+                getPercentile(99) / 1e6, getMax() / 1e6);
+    }
+    
+}
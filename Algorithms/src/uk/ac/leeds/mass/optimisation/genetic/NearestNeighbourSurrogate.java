@@ -0,0 +1,138 @@
+/**
+ * ISurrogate predicting the fitness of a genome from the k nearest genomes 
+ * already evaluated, weighting each by the inverse of its squared 
+ * distance.  Each position of the genome vector is scaled by the range of 
+ * values seen at that position so that genes with large values do not 
+ * swamp the distance.
+ * 
+ * The most recent samples are held in a ring buffer of fixed capacity, so 
+ * the predictions follow the population as it moves and the cost of a 
+ * prediction stays the same however long the run.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class NearestNeighbourSurrogate implements ISurrogate {
+    
+    private final int neighbours;
+    private final double[][] genomes;
+    private final double[] fitness;
+    private int size = 0;
+    private int next = 0;
+    
+    //range of the values seen at each position of the genome
+    private double[] minimum = null;
+    private double[] maximum = null;
+    
+    /**
+     * Creates a surrogate using the 5 nearest of the last 2000 samples.
+     */
+    public NearestNeighbourSurrogate(){
+        this(5, 2000);
+    }
+    
+    /**
+     * @param neighbours the number of nearest samples each prediction is 
+     * made from
+     * @param capacity the number of samples to hold, once full the oldest 
+     * sample is replaced by each new one
+     */
+    public NearestNeighbourSurrogate(int neighbours, int capacity){
+        if ( neighbours < 1 || capacity < neighbours ){
+            throw new IllegalArgumentException("Need at least 1 neighbour and a capacity of at least the neighbours: " 
+                    + neighbours + ", " + capacity);
+        }
+        this.neighbours = neighbours;
+        this.genomes = new double[capacity][];
+        this.fitness = new double[capacity];
+    }
+    
+    @Override
+    public void add(double[] genome, double fitness){
+        if ( minimum == null ){
+            minimum = genome.clone();
+            maximum = genome.clone();
+        }else if ( genome.length != minimum.length ){
+            throw new IllegalArgumentException("Genome of length " + genome.length + " but expected " + minimum.length);
+        }
+        for (int i = 0; i < genome.length; i++) {
+            if ( genome[i] < minimum[i] ){minimum[i] = genome[i];}
+            if ( genome[i] > maximum[i] ){maximum[i] = genome[i];}
+        }
+        genomes[next] = genome;
+        this.fitness[next] = fitness;
+        next = (next + 1) % genomes.length;
+        if ( size < genomes.length ){size++;}
+    }
+    
+    @Override
+    public double predict(double[] genome){
+        if ( size == 0 ){return Double.NaN;}
+        
+        int k = Math.min(neighbours, size);
+        //the k nearest so far, kept sorted nearest first
+        double[] nearest = new double[k];
+        int[] index = new int[k];
+        int found = 0;
+        
+        for (int s = 0; s < size; s++) {
+            double d = distance(genomes[s], genome);
+            if ( found == k && d >= nearest[k - 1] ){continue;}
+            int i = found < k ? found++ : k - 1;
+            while ( i > 0 && nearest[i - 1] > d ){
+                nearest[i] = nearest[i - 1];
+                index[i] = index[i - 1];
+                i--;
+            }
+            nearest[i] = d;
+            index[i] = s;
+        }
+        
+        //an exact match is the best prediction there can be
+        if ( nearest[0] == 0.0 ){
+            return fitness[index[0]];
+        }
+        double weights = 0.0;
+        double sum = 0.0;
+        for (int i = 0; i < found; i++) {
+            double w = 1.0 / nearest[i];
+            weights += w;
+            sum += w * fitness[index[i]];
+        }
+        return sum / weights;
+    }
+    
+    //squared distance with each position scaled by its range
+    private double distance(double[] a, double[] b){
+        double d = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            double range = maximum[i] - minimum[i];
+            double diff = a[i] - b[i];
+            if ( range > 0 ){
+                diff /= range;
+            }
+            d += diff * diff;
+        }
+        return d;
+    }
+    
+    @Override
+    public int size(){
+        return size;
+    }
+    
+    @Override
+    public void clear(){
+        for (int i = 0; i < genomes.length; i++) {
+            genomes[i] = null;
+        }
+        size = 0;
+        next = 0;
+        minimum = null;
+        maximum = null;
+    }
+    
+}
@@ -0,0 +1,94 @@
+/**
+ * Creates and evaluates the neighbours looked at by an ILocalSearch, 
+ * keeping count of the evaluations the search is allowed.  A new 
+ * Neighbourhood is created for each search.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.Random;
+
+/**
+ *
+ * @author kirkharland
+ */
+public final class Neighbourhood {
+    
+    private final GeneticAlgorithm ga;
+    private final boolean lessThan;
+    private int evaluationsLeft;
+    
+    Neighbourhood(GeneticAlgorithm ga, int evaluations){
+        this.ga = ga;
+        this.lessThan = ga.getGof().calibrateToLessThan();
+        this.evaluationsLeft = evaluations;
+    }
+    
+    /**
+     * Creates a copy of a Chromosome that can be changed, with mutate or 
+     * the setters of the genome sub classes, and then evaluated.  If the 
+     * Chromosome implements IIncrementalFitness the fitness of the copy is 
+     * updated from that of the original.
+     * 
+     * @param c the Chromosome to copy
+     * @return an unevaluated copy of the Chromosome
+     * @throws InstantiationException if the copy cannot be created
+     */
+    public Chromosome neighbour(Chromosome c) throws InstantiationException{
+        Chromosome copy = c.copyTo(ga);
+        copy.recycle();
+        if ( ga.isIncremental() ){
+            copy.trackChangesFrom(c);
+        }
+        return copy;
+    }
+    
+    /**
+     * Evaluates a neighbour, using up one of the evaluations left unless 
+     * its fitness is already known.
+     * 
+     * @param c the Chromosome to evaluate
+     * @return the fitness of the Chromosome
+     */
+    public double evaluate(Chromosome c){
+        if ( !c.isEvaluated() ){
+            evaluationsLeft--;
+        }
+        return c.getFitness();
+    }
+    
+    /**
+     * @param c an evaluated Chromosome
+     * @return the fitness of the Chromosome
+     */
+    public double getFitness(Chromosome c){
+        return evaluate(c);
+    }
+    
+    /**
+     * @param a a fitness value
+     * @param b another fitness value
+     * @return true if a is better than b for the IGOF being calibrated to, 
+     * NaN is never better
+     */
+    public boolean isBetter(double a, double b){
+        if ( Double.isNaN(a) ){return false;}
+        if ( Double.isNaN(b) ){return true;}
+        return lessThan ? a < b : a > b;
+    }
+    
+    /**
+     * @return the number of evaluations the search has left
+     */
+    public int getEvaluationsLeft(){
+        return evaluationsLeft;
+    }
+    
+    /**
+     * @return the random number stream of this search, the same one used 
+     * by mutate
+     */
+    public Random getRandom(){
+        return ga.getRandom();
+    }
+    
+}
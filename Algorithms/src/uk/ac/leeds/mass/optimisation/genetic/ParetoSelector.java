@@ -0,0 +1,262 @@
+/**
+ * Selects the best distinct Chromosome objects from a candidate population
+ * when calibrating to several objectives at once, in the way of NSGA-II.  The
+ * candidates are sorted into fronts, the first holding those not dominated
+ * by any other candidate, the second those only dominated by the first and
+ * so on.  Whole fronts are taken until the next one does not fit, which is
+ * then cut down keeping the members with the largest crowding distance so
+ * that the selection is spread along the front.
+ *
+ * The fronts are found with the efficient non-dominated sort (ENS) using a
+ * binary search over the fronts.  The candidates are sorted on their
+ * objective values first, after which a candidate can only be dominated by
+ * one before it, so each is compared with the members of at most log(f)
+ * fronts rather than with every other candidate as in the original fast
+ * non-dominated sort.  This keeps the sort quick for populations in the
+ * thousands.
+ *
+ * Ties are broken by the position in the candidate list so the selection is
+ * the same every time.  An objective value of NaN is ranked last.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import uk.ac.leeds.mass.statistics.gof.IGOF;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class ParetoSelector {
+
+    private final HashSet<Chromosome> seen = new HashSet<Chromosome>();
+
+    /**
+     * Selects the best distinct candidates.
+     *
+     * @param candidates the evaluated Chromosome objects to select from
+     * @param objectives the objectives the candidates were evaluated with
+     * @param count the maximum number of Chromosome objects to select
+     * @param elite the list to add the selected Chromosome objects to, in
+     * order of front and then crowding distance
+     */
+    void select(List<Chromosome> candidates, IGOF[] objectives, int count, List<Chromosome> elite){
+        List<Chromosome> distinct = distinct(candidates);
+        double[][] keys = keys(distinct, objectives);
+        int[][] fronts = sort(keys);
+
+        for (int[] front : fronts) {
+            if ( elite.size() >= count ){break;}
+            int[] order = byCrowding(front, keys);
+            for (int i = 0; i < order.length && elite.size() < count; i++) {
+                elite.add(distinct.get(order[i]));
+            }
+        }
+    }
+
+    /**
+     * Returns the distinct members of the population that are not dominated
+     * by any other member.
+     *
+     * @param population the evaluated Chromosome objects
+     * @param objectives the objectives the population was evaluated with
+     * @return the first front, in population order
+     */
+    List<Chromosome> firstFront(List<Chromosome> population, IGOF[] objectives){
+        List<Chromosome> distinct = distinct(population);
+        List<Chromosome> front = new ArrayList<Chromosome>();
+        if ( distinct.isEmpty() ){return front;}
+
+        int[] first = sort(keys(distinct, objectives))[0];
+        Arrays.sort(first);
+        for (int i : first) {
+            front.add(distinct.get(i));
+        }
+        return front;
+    }
+
+    private List<Chromosome> distinct(List<Chromosome> candidates){
+        List<Chromosome> distinct = new ArrayList<Chromosome>(candidates.size());
+        seen.clear();
+        for (Chromosome c : candidates) {
+            if ( seen.add(c) ){
+                distinct.add(c);
+            }
+        }
+        seen.clear();
+        return distinct;
+    }
+
+    /**
+     * Copies the objective values into an array where smaller values are
+     * always better.
+     */
+    private double[][] keys(List<Chromosome> candidates, IGOF[] objectives){
+        int m = objectives.length;
+        double[][] keys = new double[candidates.size()][m];
+        for (int i = 0; i < keys.length; i++) {
+            Chromosome c = candidates.get(i);
+            //with a single objective it is the fitness, which saves working
+            //the objective values out separately
+            double[] values = m == 1 ? new double[]{c.getFitness()} : c.objectives();
+            for (int j = 0; j < m; j++) {
+                double v = values[j];
+                if ( Double.isNaN(v) ){
+                    keys[i][j] = Double.POSITIVE_INFINITY;
+                }else{
+                    //adding 0.0 turns -0.0 into 0.0
+                    keys[i][j] = (objectives[j].calibrateToLessThan() ? v : -v) + 0.0;
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Sorts the candidates into non-dominated fronts.
+     *
+     * @param keys the objective values of each candidate, smaller is better
+     * @return the indexes of the candidates in each front, best front first
+     */
+    static int[][] sort(final double[][] keys){
+        int n = keys.length;
+
+        //sort lexicographically on the objectives so that no candidate is
+        //dominated by one after it
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>(){
+            @Override
+            public int compare(Integer a, Integer b) {
+                double[] ka = keys[a];
+                double[] kb = keys[b];
+                for (int j = 0; j < ka.length; j++) {
+                    int c = Double.compare(ka[j], kb[j]);
+                    if ( c != 0 ){return c;}
+                }
+                return a.compareTo(b);
+            }
+        });
+
+        int[][] members = new int[n][];
+        int[] sizes = new int[n];
+        int frontCount = 0;
+
+        for (int k = 0; k < n; k++) {
+            int s = order[k];
+
+            //if a front dominates the candidate so does every front before
+            //it, so the first front that does not can be found by bisection
+            int low = 0;
+            int high = frontCount;
+            while ( low < high ){
+                int mid = (low + high) >>> 1;
+                if ( dominated(s, members[mid], sizes[mid], keys) ){
+                    low = mid + 1;
+                }else{
+                    high = mid;
+                }
+            }
+
+            if ( low == frontCount ){
+                members[low] = new int[4];
+                frontCount++;
+            }else if ( sizes[low] == members[low].length ){
+                members[low] = Arrays.copyOf(members[low], sizes[low] << 1);
+            }
+            members[low][sizes[low]++] = s;
+        }
+
+        int[][] fronts = new int[frontCount][];
+        for (int i = 0; i < frontCount; i++) {
+            fronts[i] = Arrays.copyOf(members[i], sizes[i]);
+        }
+        return fronts;
+    }
+
+    //true if any member of the front dominates candidate s, the most
+    //recently added members are the closest to s so they are tried first
+    private static boolean dominated(int s, int[] front, int size, double[][] keys){
+        double[] ks = keys[s];
+        for (int i = size - 1; i >= 0; i--) {
+            if ( dominates(keys[front[i]], ks) ){return true;}
+        }
+        return false;
+    }
+
+    //true if a is at least as good as b on every objective and better on one
+    private static boolean dominates(double[] a, double[] b){
+        boolean better = false;
+        for (int j = 0; j < a.length; j++) {
+            if ( a[j] > b[j] ){return false;}
+            if ( a[j] < b[j] ){better = true;}
+        }
+        return better;
+    }
+
+    /**
+     * Orders the members of a front by crowding distance, largest first.
+     * The distance of a member is the sum over the objectives of the gap
+     * between its neighbours on that objective, scaled by the range of the
+     * objective.  The members at either end of an objective get an infinite
+     * distance so the extremes of the front are always kept.
+     *
+     * @return the indexes of the candidates in the order to select them
+     */
+    static int[] byCrowding(int[] front, final double[][] keys){
+        int size = front.length;
+        if ( size == 0 ){return front;}
+        final int[] members = front;
+        final double[] distance = new double[size];
+        Integer[] order = new Integer[size];
+
+        for (int j = 0; j < keys[front[0]].length; j++) {
+            final int objective = j;
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>(){
+                @Override
+                public int compare(Integer a, Integer b) {
+                    int c = Double.compare(keys[members[a]][objective], keys[members[b]][objective]);
+                    return c != 0 ? c : Integer.compare(members[a], members[b]);
+                }
+            });
+
+            distance[order[0]] = Double.POSITIVE_INFINITY;
+            distance[order[size - 1]] = Double.POSITIVE_INFINITY;
+            double range = keys[front[order[size - 1]]][j] - keys[front[order[0]]][j];
+            //an infinite range means a NaN was in the front, the ends still
+            //count but the gaps between the others cannot be scaled
+            if ( range > 0 && !Double.isInfinite(range) ){
+                for (int i = 1; i < size - 1; i++) {
+                    distance[order[i]] += (keys[front[order[i + 1]]][j] - keys[front[order[i - 1]]][j]) / range;
+                }
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>(){
+            @Override
+            public int compare(Integer a, Integer b) {
+                int c = Double.compare(distance[b], distance[a]);
+                return c != 0 ? c : Integer.compare(members[a], members[b]);
+            }
+        });
+
+        int[] sorted = new int[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = front[order[i]];
+        }
+        return sorted;
+    }
+
+}
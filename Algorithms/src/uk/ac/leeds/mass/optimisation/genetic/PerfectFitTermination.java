@@ -0,0 +1,26 @@
+/**
+ * Stops the run once the best Chromosome is a perfect fit according to the 
+ * IGOF of the GeneticAlgorithm.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class PerfectFitTermination implements ITerminationCondition{
+
+    @Override
+    public void reset() {}
+
+    @Override
+    public boolean isSatisfied(GeneticAlgorithm ga, GenerationStatistics statistics) {
+        return ga.getGof().isPerfect(statistics.getBestFitness());
+    }
+
+    @Override
+    public String getDescription() {
+        return "Perfect fit found";
+    }
+    
+}
@@ -0,0 +1,147 @@
+/**
+ * Stores the genomes and fitness values of a population of DoubleGenome 
+ * objects in direct byte buffers outside the Java heap, as fixed length 
+ * records of the fitness followed by the values.  A population of millions 
+ * of short genomes then takes 8 bytes for each number and nothing for the 
+ * objects, arrays and headers that a Chromosome each needs, and the garbage 
+ * collector never has to look at it.
+ * 
+ * A single buffer cannot be larger than 2GB so the records are spread over 
+ * as many buffers as needed, each holding a whole number of records.  The 
+ * records are read and written with the absolute get and put methods, so 
+ * different records can be worked on from several threads at once.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class PopulationArena {
+    
+    //the largest buffer allocated
+    private static final int CHUNK_BYTES = 1 << 30;
+    
+    private final int size;
+    private final int length;
+    private final int stride;
+    private final int recordsPerChunk;
+    private final ByteBuffer[] chunks;
+    
+    /**
+     * @param size the number of records
+     * @param length the number of values in each genome
+     */
+    PopulationArena(int size, int length){
+        this.size = size;
+        this.length = length;
+        this.stride = (length + 1) << 3;
+        if ( stride > CHUNK_BYTES ){
+            throw new IllegalArgumentException("Genome too long to store: " + length);
+        }
+        this.recordsPerChunk = CHUNK_BYTES / stride;
+        int count = size == 0 ? 0 : (size - 1) / recordsPerChunk + 1;
+        chunks = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            int records = Math.min(recordsPerChunk, size - i * recordsPerChunk);
+            chunks[i] = ByteBuffer.allocateDirect(records * stride).order(ByteOrder.nativeOrder());
+        }
+    }
+    
+    /**
+     * @return the number of records
+     */
+    int size(){
+        return size;
+    }
+    
+    /**
+     * @return the number of values in each genome
+     */
+    int length(){
+        return length;
+    }
+    
+    private ByteBuffer chunk(int record){
+        return chunks[record / recordsPerChunk];
+    }
+    
+    //the byte offset of the record within its chunk
+    private int offset(int record){
+        return (record % recordsPerChunk) * stride;
+    }
+    
+    double getFitness(int record){
+        return chunk(record).getDouble(offset(record));
+    }
+    
+    void setFitness(int record, double fitness){
+        chunk(record).putDouble(offset(record), fitness);
+    }
+    
+    double getValue(int record, int index){
+        return chunk(record).getDouble(offset(record) + ((index + 1) << 3));
+    }
+    
+    void setValue(int record, int index, double value){
+        chunk(record).putDouble(offset(record) + ((index + 1) << 3), value);
+    }
+    
+    /**
+     * Copies the values of a record into an array.
+     */
+    void read(int record, double[] values){
+        ByteBuffer b = chunk(record);
+        int o = offset(record) + 8;
+        for (int i = 0; i < length; i++, o += 8) {
+            values[i] = b.getDouble(o);
+        }
+    }
+    
+    /**
+     * Copies the values from an array into a record.
+     */
+    void write(int record, double[] values){
+        ByteBuffer b = chunk(record);
+        int o = offset(record) + 8;
+        for (int i = 0; i < length; i++, o += 8) {
+            b.putDouble(o, values[i]);
+        }
+    }
+    
+    /**
+     * @return the hash code of the values of a record, the same as 
+     * Arrays.hashCode of the values
+     */
+    int hash(int record){
+        ByteBuffer b = chunk(record);
+        int o = offset(record) + 8;
+        int hash = 1;
+        for (int i = 0; i < length; i++, o += 8) {
+            long bits = Double.doubleToLongBits(b.getDouble(o));
+            hash = 31 * hash + (int)(bits ^ (bits >>> 32));
+        }
+        return hash;
+    }
+    
+    /**
+     * @return true if the values of a record are the same as those of a 
+     * record in another arena, in the way of Arrays.equals
+     */
+    boolean equal(int record, PopulationArena other, int otherRecord){
+        ByteBuffer a = chunk(record);
+        ByteBuffer b = other.chunk(otherRecord);
+        int oa = offset(record) + 8;
+        int ob = other.offset(otherRecord) + 8;
+        for (int i = 0; i < length; i++, oa += 8, ob += 8) {
+            if ( Double.doubleToLongBits(a.getDouble(oa)) != Double.doubleToLongBits(b.getDouble(ob)) ){
+                return false;
+            }
+        }
+        return true;
+    }
+    
+}
@@ -0,0 +1,456 @@
+/**
+ * IBatchEvaluator that runs the model in a pool of long lived worker 
+ * processes, for models that are native simulators rather than Java code.  
+ * Each batch is split between the workers, which are sent the genomes on 
+ * their standard input and reply with the output of the model on their 
+ * standard output.  The output is then tested against the observed data 
+ * with the IGOF set on the GeneticAlgorithm.  The workers run at the same 
+ * time, each with its own thread, so a pool of n workers evaluates a batch 
+ * up to n times faster than running the model once for each Chromosome.
+ * 
+ * The protocol is one line of text for each Chromosome in both directions.  
+ * The request is the id of the Chromosome followed by the values returned by 
+ * Chromosome.getGenomeVector, separated by spaces.  The reply starts with the 
+ * same id followed by the output of the model in row order, which must hold 
+ * as many values as the observed data, or by the word ERROR if the model 
+ * failed, in which case the fitness is NaN.  Requests are streamed to the 
+ * worker without waiting for the replies, which must come back in the same 
+ * order.  A worker should run until its standard input is closed.  For 
+ * example a worker whose output is simply its input could be the script
+ * 
+ *     while read id values; do echo "$id $values"; done
+ * 
+ * scripts/process-worker-stub.sh is such a worker, which can also be made 
+ * slow, crash or hang to try out the pool.
+ * 
+ * A worker that has not replied to all of its batch within the timeout is 
+ * killed, as is one whose output cannot be read, and the batch is tried 
+ * again on a new process.  The timeout starts once the worker is free, so 
+ * batches from several GeneticAlgorithms sharing a pool wait for each other 
+ * rather than timing out.  If a batch fails on every attempt the error is 
+ * reported to the GeneticAlgorithm and the run ends.  Anything the workers 
+ * write to their standard error is passed through to this process.
+ * 
+ * Call close once finished to stop the workers.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import uk.ac.leeds.mass.statistics.gof.IGOF;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class ProcessEvaluatorPool implements IBatchEvaluator, Closeable {
+    
+    private final List<String> command;
+    private final double[][] observed;
+    private final Worker[] workers;
+    private final ExecutorService threads;
+    
+    private long timeout = 60000;
+    private int attempts = 3;
+    private final AtomicInteger restarts = new AtomicInteger();
+    private volatile boolean closed = false;
+    
+    /**
+     * @param command the command that starts a worker process and its 
+     * arguments
+     * @param observed the observed data the output of the model is tested 
+     * against
+     * @param size the number of worker processes
+     */
+    public ProcessEvaluatorPool(List<String> command, double[][] observed, int size){
+        if ( size < 1 ){
+            throw new IllegalArgumentException("Need at least one worker: " + size);
+        }
+        this.command = new ArrayList<String>(command);
+        this.observed = observed;
+        this.workers = new Worker[size];
+        for (int i = 0; i < size; i++) {
+            workers[i] = new Worker();
+        }
+        //threads to read from and write to the workers
+        this.threads = Executors.newCachedThreadPool(new GeneticAlgorithm.DaemonThreadFactory("process"));
+    }
+    
+    /**
+     * Evaluates the Chromosome objects on the worker processes, splitting 
+     * them evenly between the workers.
+     * 
+     * @throws IOException if a part of the batch failed on every attempt
+     */
+    @Override
+    public double[] evaluate(List<Chromosome> chromosomes, IGOF gof) throws Exception {
+        if ( closed ){
+            throw new IllegalStateException("The evaluator pool has been closed");
+        }
+        
+        //write the requests up front so a failed attempt can be resent
+        int n = chromosomes.size();
+        String[] requests = new String[n];
+        for (int i = 0; i < n; i++) {
+            requests[i] = request(i, chromosomes.get(i));
+        }
+        
+        int parts = Math.min(workers.length, n);
+        int[] from = new int[parts + 1];
+        for (int k = 0; k <= parts; k++) {
+            from[k] = (int)((long)n * k / parts);
+        }
+        
+        List<Attempt> running = new ArrayList<Attempt>(parts);
+        for (int k = 0; k < parts; k++) {
+            running.add(new Attempt(workers[k], requests, from[k], from[k + 1], gof));
+        }
+        
+        double[] fitness = new double[n];
+        for (int k = 0; k < parts; k++) {
+            int tries = 1;
+            Attempt attempt = running.get(k);
+            while ( true ){
+                Throwable failure;
+                try{
+                    double[] part = attempt.get();
+                    System.arraycopy(part, 0, fitness, from[k], part.length);
+                    break;
+                }catch(TimeoutException e){
+                    failure = new TimeoutException("Worker did not reply within " + timeout + "ms");
+                }catch(ExecutionException e){
+                    failure = e.getCause();
+                }
+                
+                //start again on a new process with a new timeout
+                attempt.kill();
+                if ( tries++ >= attempts ){
+                    cancel(running);
+                    throw new IOException("Batch failed after " + attempts + " attempts on " + command, failure);
+                }
+                attempt = new Attempt(workers[k], requests, from[k], from[k + 1], gof);
+                running.set(k, attempt);
+            }
+        }
+        return fitness;
+    }
+    
+    private void cancel(List<Attempt> running){
+        for (Attempt attempt : running) {
+            attempt.kill();
+        }
+    }
+    
+    private static String request(int id, Chromosome c){
+        double[] genome = c.getGenomeVector();
+        if ( genome == null ){
+            throw new IllegalArgumentException(c.getClass().getName() 
+                    + " must return its genes from getGenomeVector to be evaluated by a worker process");
+        }
+        StringBuilder s = new StringBuilder();
+        s.append(id);
+        for (int i = 0; i < genome.length; i++) {
+            s.append(' ').append(genome[i]);
+        }
+        return s.toString();
+    }
+    
+    /**
+     * @return the number of milliseconds a worker has to reply to all of 
+     * its part of a batch
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+    
+    /**
+     * @param timeout the number of milliseconds a worker has to reply to 
+     * all of its part of a batch before it is killed
+     */
+    public void setTimeout(long timeout) {
+        if ( timeout <= 0 ){
+            throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+        }
+        this.timeout = timeout;
+    }
+    
+    /**
+     * @return the number of times a part of a batch is tried before the 
+     * batch fails
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+    
+    /**
+     * @param attempts the number of times a part of a batch is tried before 
+     * the batch fails, at least 1
+     */
+    public void setAttempts(int attempts) {
+        if ( attempts < 1 ){
+            throw new IllegalArgumentException("Need at least one attempt: " + attempts);
+        }
+        this.attempts = attempts;
+    }
+    
+    /**
+     * @return the number of worker processes started to replace ones that 
+     * crashed or were killed
+     */
+    public int getRestartCount() {
+        return restarts.get();
+    }
+    
+    /**
+     * Stops the worker processes, closing their standard input and killing 
+     * any that have not finished a second later.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Worker worker : workers) {
+            worker.stop();
+        }
+        threads.shutdownNow();
+    }
+    
+    /**
+     * One try at a part of a batch on a worker.  The timeout only starts 
+     * once the worker is serving this part, not while it waits for another 
+     * batch to finish with the worker, and only the process this part was 
+     * sent to is killed if it fails.
+     */
+    private final class Attempt {
+        
+        private final Worker worker;
+        private final CompletableFuture<double[]> result;
+        //completed with the deadline once the worker is serving this part
+        private final CompletableFuture<Long> started = new CompletableFuture<Long>();
+        private Process process = null;
+        private boolean finished = false;
+        
+        Attempt(final Worker worker, final String[] requests, final int from, final int to, final IGOF gof){
+            this.worker = worker;
+            this.result = CompletableFuture.supplyAsync(new Supplier<double[]>(){
+                @Override
+                public double[] get() {
+                    try{
+                        return worker.evaluate(Attempt.this, requests, from, to, gof);
+                    }catch(IOException e){
+                        throw new CompletionException(e);
+                    }
+                }
+            }, threads);
+        }
+        
+        /**
+         * Called by the worker once it holds its lock.
+         * 
+         * @return false if this part has been cancelled and should not be 
+         * sent
+         */
+        synchronized boolean begin(Process p){
+            if ( finished ){return false;}
+            process = p;
+            started.complete(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout));
+            return true;
+        }
+        
+        /**
+         * Called by the worker, still holding its lock, once this part has 
+         * been sent and read, after which its process is never killed.
+         */
+        synchronized void finish(){
+            finished = true;
+        }
+        
+        /**
+         * Waits for the worker to be free, without a limit as the batch it 
+         * is serving has a timeout of its own, then for the replies until 
+         * the timeout.
+         */
+        double[] get() throws InterruptedException, ExecutionException, TimeoutException{
+            CompletableFuture.anyOf(started, result).get();
+            //if it failed before it started the failure is thrown straight away
+            long wait = started.isDone() ? started.join() - System.nanoTime() : 0;
+            return result.get(Math.max(0, wait), TimeUnit.NANOSECONDS);
+        }
+        
+        /**
+         * Kills the process if this part is still being served, or stops it 
+         * from being sent if it is still waiting for the worker.
+         */
+        synchronized void kill(){
+            if ( !finished ){
+                finished = true;
+                worker.kill(process);
+            }
+        }
+    }
+    
+    /**
+     * A single worker process, used by one batch at a time.
+     */
+    private final class Worker {
+        
+        private volatile Process process = null;
+        private BufferedWriter input = null;
+        private BufferedReader output = null;
+        private boolean started = false;
+        
+        /**
+         * Sends the requests to the process and tests the replies.
+         */
+        synchronized double[] evaluate(Attempt attempt, final String[] requests, final int from, final int to, 
+                IGOF gof) throws IOException{
+            if ( closed ){
+                throw new IOException("The evaluator pool has been closed");
+            }
+            final Process p = start();
+            if ( !attempt.begin(p) ){
+                throw new CancellationException();
+            }
+            final BufferedWriter in = input;
+            
+            //write on another thread so that a worker that replies while 
+            //there are requests still to send cannot block
+            CompletableFuture<Void> written = CompletableFuture.runAsync(new Runnable(){
+                @Override
+                public void run() {
+                    try{
+                        for (int i = from; i < to; i++) {
+                            in.write(requests[i]);
+                            in.newLine();
+                        }
+                        in.flush();
+                    }catch(IOException e){
+                        throw new CompletionException(e);
+                    }
+                }
+            }, threads);
+            
+            double[] fitness = new double[to - from];
+            try{
+                for (int i = from; i < to; i++) {
+                    String line = output.readLine();
+                    if ( line == null ){
+                        throw new IOException("Worker process ended" + (p.isAlive() ? "" : " with exit code " + p.exitValue()));
+                    }
+                    fitness[i - from] = score(line, i, gof);
+                }
+                written.join();
+            }catch(IOException e){
+                kill(p);
+                throw e;
+            }catch(RuntimeException e){
+                kill(p);
+                throw e;
+            }finally{
+                attempt.finish();
+            }
+            return fitness;
+        }
+        
+        //tests one reply, the id must be the one expected
+        private double score(String line, int id, IGOF gof) throws IOException{
+            String[] fields = line.trim().split("\\s+");
+            if ( !fields[0].equals(Integer.toString(id)) ){
+                throw new IOException("Expected the reply for " + id + " but got: " + abbreviate(line));
+            }
+            if ( fields.length > 1 && fields[1].equals("ERROR") ){
+                return Double.NaN;
+            }
+            
+            int columns = observed.length == 0 ? 0 : observed[0].length;
+            if ( fields.length - 1 != observed.length * columns ){
+                throw new IOException("Expected " + (observed.length * columns) + " values for " + id 
+                        + " but got " + (fields.length - 1));
+            }
+            double[][] modelled = new double[observed.length][columns];
+            int f = 1;
+            try{
+                for (int r = 0; r < observed.length; r++) {
+                    for (int c = 0; c < columns; c++) {
+                        modelled[r][c] = Double.parseDouble(fields[f++]);
+                    }
+                }
+            }catch(NumberFormatException e){
+                throw new IOException("Cannot read the reply for " + id + ": " + abbreviate(line), e);
+            }
+            return gof.test(observed, modelled);
+        }
+        
+        private String abbreviate(String line){
+            return line.length() > 80 ? line.substring(0, 80) + "..." : line;
+        }
+        
+        private Process start() throws IOException{
+            Process p = process;
+            if ( p != null && p.isAlive() ){return p;}
+            if ( started ){
+                restarts.incrementAndGet();
+            }
+            ProcessBuilder builder = new ProcessBuilder(command);
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            p = builder.start();
+            input = new BufferedWriter(new OutputStreamWriter(p.getOutputStream(), StandardCharsets.UTF_8));
+            output = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8));
+            started = true;
+            process = p;
+            return p;
+        }
+        
+        /**
+         * Kills a process started by this worker, which makes any read or 
+         * write in progress fail.
+         * 
+         * @param p the process to kill, nothing is done if it is null
+         */
+        void kill(Process p){
+            if ( p == null ){return;}
+            //forget the process straight away, it may still look alive for 
+            //a moment while it is being killed
+            if ( process == p ){
+                process = null;
+            }
+            p.destroyForcibly();
+        }
+        
+        /**
+         * Asks the process to finish by closing its standard input.
+         */
+        void stop(){
+            Process p = process;
+            if ( p == null ){return;}
+            try{
+                p.getOutputStream().close();
+                if ( !p.waitFor(1, TimeUnit.SECONDS) ){
+                    p.destroyForcibly();
+                }
+            }catch(IOException e){
+                p.destroyForcibly();
+            }catch(InterruptedException e){
+                p.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,68 @@
+/**
+ * Linear rank selection, each member of the breed population is selected 
+ * with a probability that falls in a straight line from the best member to 
+ * the worst, however far apart their fitness values are.  This keeps the 
+ * selection pressure the same through the run, where roulette selection 
+ * loses it as the fitness values of the population close up.
+ * 
+ * The probabilities are turned into an alias table once each generation 
+ * so that each selection takes constant time however large the population.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.Random;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class RankSelection implements ISelectionStrategy {
+    
+    private final double pressure;
+    private volatile AliasTable table = null;
+    
+    /**
+     * Creates a rank selection where the best member is twice as likely to 
+     * be selected as the average member and the worst is never selected.
+     */
+    public RankSelection(){
+        this(2.0);
+    }
+    
+    /**
+     * @param pressure how many times more likely the best member is to be 
+     * selected than the average member, from 1 (all equally likely) to 2 
+     * (the worst is never selected)
+     */
+    public RankSelection(double pressure){
+        if ( !(pressure >= 1.0 && pressure <= 2.0) ){
+            throw new IllegalArgumentException("Pressure must be between 1 and 2: " + pressure);
+        }
+        this.pressure = pressure;
+    }
+    
+    @Override
+    public void prepare(double[] fitness, boolean ascending) {
+        //the breed population is held best first so the rank is the index
+        int n = fitness.length;
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = n == 1 ? 1.0 : pressure - 2.0 * (pressure - 1.0) * i / (n - 1);
+        }
+        table = new AliasTable(weights);
+    }
+
+    @Override
+    public int select(Random random) {
+        return table.draw(random);
+    }
+    
+    /**
+     * @return how many times more likely the best member is to be selected 
+     * than the average member
+     */
+    public double getPressure() {
+        return pressure;
+    }
+    
+}
@@ -0,0 +1,104 @@
+/**
+ * Default IChromosomeFactory used when none has been set on the 
+ * GeneticAlgorithm.  The constructors for each Chromosome sub class are 
+ * looked up once and cached so creating offspring costs little more than 
+ * calling the constructor directly.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class ReflectiveChromosomeFactory implements IChromosomeFactory{
+    
+    //one factory per Chromosome sub class, created on first use
+    private static final ClassValue<ReflectiveChromosomeFactory> FACTORIES = new ClassValue<ReflectiveChromosomeFactory>(){
+        @Override
+        protected ReflectiveChromosomeFactory computeValue(Class<?> type) {
+            return new ReflectiveChromosomeFactory(type.asSubclass(Chromosome.class));
+        }
+    };
+    
+    private final Class<? extends Chromosome> subClass;
+    
+    //the constructors are resolved lazily as most runs only ever use one
+    private volatile Constructor<?> parentConstructor = null;
+    private volatile Constructor<?> genesConstructor = null;
+    
+    private ReflectiveChromosomeFactory(Class<? extends Chromosome> subClass){
+        this.subClass = subClass;
+    }
+    
+    /**
+     * @param subClass the Chromosome sub class to create objects of
+     * @return the shared factory for the sub class
+     */
+    static ReflectiveChromosomeFactory forClass(Class<? extends Chromosome> subClass){
+        return FACTORIES.get(subClass);
+    }
+
+    @Override
+    public Chromosome newChromosome(GeneticAlgorithm parent) throws InstantiationException {
+        Constructor<?> c = parentConstructor;
+        if ( c == null ){
+            c = findConstructor(GeneticAlgorithm.class);
+            parentConstructor = c;
+        }
+        return instantiate(c, parent);
+    }
+
+    @Override
+    public Chromosome newChromosome(GeneticAlgorithm parent, ArrayList<Gene> genes) throws InstantiationException {
+        Constructor<?> c = genesConstructor;
+        if ( c == null ){
+            c = findConstructor(GeneticAlgorithm.class, ArrayList.class);
+            genesConstructor = c;
+        }
+        return instantiate(c, parent, genes);
+    }
+    
+    /**
+     * Finds the constructor declared by the sub class for the parameter 
+     * definition.  A sub class that does not declare the constructor must 
+     * be created through an IChromosomeFactory set on the GeneticAlgorithm.
+     * 
+     * @param parameterDefinition the constructor parameter types
+     * @return an accessible constructor
+     * @throws InstantiationException if no constructor can be found
+     */
+    private Constructor<?> findConstructor(Class<?>... parameterDefinition) throws InstantiationException{
+        try{
+            Constructor<?> c = subClass.getDeclaredConstructor(parameterDefinition);
+            c.setAccessible(true);
+            return c;
+        }catch(NoSuchMethodException e){
+            throw instantiationException(subClass.getName() + " must declare a constructor taking the "
+                    + "GeneticAlgorithm parameters or an IChromosomeFactory must be set", e);
+        }catch(RuntimeException e){
+            //the constructor could not be made accessible
+            throw instantiationException("Cannot access constructor of " + subClass.getName(), e);
+        }
+    }
+    
+    private Chromosome instantiate(Constructor<?> c, Object... parameters) throws InstantiationException{
+        try{
+            return subClass.cast(c.newInstance(parameters));
+        }catch(InvocationTargetException e){
+            throw instantiationException("Constructor of " + subClass.getName() + " failed", e.getCause());
+        }catch(IllegalAccessException e){
+            throw instantiationException("Cannot access constructor of " + subClass.getName(), e);
+        }
+    }
+    
+    private static InstantiationException instantiationException(String message, Throwable cause){
+        InstantiationException e = new InstantiationException(message);
+        e.initCause(cause);
+        return e;
+    }
+    
+}
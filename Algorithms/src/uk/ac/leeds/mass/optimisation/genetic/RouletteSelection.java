@@ -0,0 +1,50 @@
+/**
+ * Fitness proportionate (roulette wheel) selection, each member of the 
+ * breed population is selected with a probability in proportion to how much 
+ * better its fitness is than the worst member.  The worst member is 
+ * therefore never selected, unless every member has the same fitness in 
+ * which case they are all equally likely.  A fitness of NaN or infinity is 
+ * never selected.
+ * 
+ * The probabilities are turned into an alias table once each generation 
+ * so that each selection takes constant time however large the population.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.Random;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class RouletteSelection implements ISelectionStrategy {
+    
+    private volatile AliasTable table = null;
+    
+    @Override
+    public void prepare(double[] fitness, boolean ascending) {
+        double worst = Double.NaN;
+        for (double f : fitness) {
+            if ( isUsable(f) && (Double.isNaN(worst) || (ascending ? f > worst : f < worst)) ){
+                worst = f;
+            }
+        }
+        double[] weights = new double[fitness.length];
+        for (int i = 0; i < fitness.length; i++) {
+            if ( isUsable(fitness[i]) ){
+                weights[i] = ascending ? worst - fitness[i] : fitness[i] - worst;
+            }
+        }
+        table = new AliasTable(weights);
+    }
+    
+    private static boolean isUsable(double f){
+        return !Double.isNaN(f) && !Double.isInfinite(f);
+    }
+
+    @Override
+    public int select(Random random) {
+        return table.draw(random);
+    }
+    
+}
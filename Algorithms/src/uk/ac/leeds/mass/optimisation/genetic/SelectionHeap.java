@@ -0,0 +1,203 @@
+/**
+ * Keeps the best distinct items offered to it, up to a fixed number, for 
+ * the selectors of the breed population.  The items are held in a binary 
+ * heap with the worst at the top, so an item is either dropped straight 
+ * away or replaces the worst at a cost of O(log k), and a hash map of the 
+ * items finds duplicates.
+ * 
+ * Each item comes with a key, smaller keys being better, and its position 
+ * in the candidate population.  Ties in the key are broken by the position 
+ * and of identical items the one that ranks first is kept, so the items 
+ * kept are the same as those of a stable sort of the candidates followed 
+ * by taking the first distinct ones, whatever order they are offered in. 
+ * A key of NaN is always ranked last.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 
+ * @author kirkharland
+ */
+final class SelectionHeap<T> {
+    
+    private final int capacity;
+    
+    //the items kept, the worst at the top
+    private final Entry<T>[] heap;
+    private int size = 0;
+    private final HashMap<T, Entry<T>> members = new HashMap<T, Entry<T>>();
+    
+    /**
+     * @param capacity the maximum number of items to keep
+     */
+    @SuppressWarnings("unchecked")
+    SelectionHeap(int capacity){
+        this.capacity = Math.max(0, capacity);
+        this.heap = new Entry[this.capacity];
+    }
+    
+    /**
+     * Works out the key of a fitness value, so that smaller keys are 
+     * always better.  Adding 0.0 turns -0.0 into 0.0 so the two rank the 
+     * same.
+     * 
+     * @param fitness the fitness value
+     * @param ascending true if smaller fitness values are better
+     * @return the key
+     */
+    static double key(double fitness, boolean ascending){
+        return (ascending ? fitness : -fitness) + 0.0;
+    }
+    
+    /**
+     * @return the maximum number of items kept
+     */
+    int getCapacity(){
+        return capacity;
+    }
+    
+    /**
+     * @return the number of items kept
+     */
+    int size(){
+        return size;
+    }
+    
+    /**
+     * Checks whether an item could be kept without looking at the item, so 
+     * callers can avoid creating it.  An item that fails can never be kept, 
+     * one that passes still may not be if it is a duplicate.
+     * 
+     * @param key the key of the item
+     * @param position the position of the item
+     * @return false if the item would be dropped
+     */
+    boolean accepts(double key, int position){
+        if ( size < capacity ){return true;}
+        return size > 0 && ranksAfter(heap[0].key, heap[0].position, key, position);
+    }
+    
+    /**
+     * Offers an item.
+     * 
+     * @param item the item
+     * @param key the key of the item, smaller keys are better
+     * @param position the position of the item
+     * @return true if the item is kept
+     */
+    boolean offer(T item, double key, int position){
+        //an item that does not beat the worst cannot replace it, nor a
+        //duplicate of itself which ranks before the worst
+        if ( !accepts(key, position) ){return false;}
+        
+        Entry<T> present = members.get(item);
+        if ( present != null ){
+            if ( !ranksAfter(present.key, present.position, key, position) ){return false;}
+            members.remove(present.item);
+            present.item = item;
+            present.key = key;
+            present.position = position;
+            members.put(item, present);
+            siftDown(present.slot);
+            return true;
+        }
+        
+        Entry<T> entry = new Entry<T>(item, key, position);
+        if ( size < capacity ){
+            heap[size] = entry;
+            entry.slot = size;
+            size++;
+            siftUp(entry.slot);
+        }else{
+            members.remove(heap[0].item);
+            heap[0] = entry;
+            entry.slot = 0;
+            siftDown(0);
+        }
+        members.put(item, entry);
+        return true;
+    }
+    
+    /**
+     * Takes every item off the heap, leaving it empty.
+     * 
+     * @return the items, best first
+     */
+    List<T> drain(){
+        List<T> items = new ArrayList<T>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(null);
+        }
+        //the worst come off first
+        while ( size > 0 ){
+            items.set(size - 1, heap[0].item);
+            size--;
+            heap[0] = heap[size];
+            heap[0].slot = 0;
+            heap[size] = null;
+            if ( size > 0 ){
+                siftDown(0);
+            }
+        }
+        members.clear();
+        return items;
+    }
+    
+    private void siftUp(int slot){
+        Entry<T> entry = heap[slot];
+        while ( slot > 0 ){
+            int parent = (slot - 1) >>> 1;
+            if ( !worse(entry, heap[parent]) ){break;}
+            heap[slot] = heap[parent];
+            heap[slot].slot = slot;
+            slot = parent;
+        }
+        heap[slot] = entry;
+        entry.slot = slot;
+    }
+    
+    private void siftDown(int slot){
+        Entry<T> entry = heap[slot];
+        while ( true ){
+            int child = (slot << 1) + 1;
+            if ( child >= size ){break;}
+            if ( child + 1 < size && worse(heap[child + 1], heap[child]) ){
+                child++;
+            }
+            if ( !worse(heap[child], entry) ){break;}
+            heap[slot] = heap[child];
+            heap[slot].slot = slot;
+            slot = child;
+        }
+        heap[slot] = entry;
+        entry.slot = slot;
+    }
+    
+    //true if a ranks after b
+    private static boolean worse(Entry<?> a, Entry<?> b){
+        return ranksAfter(a.key, a.position, b.key, b.position);
+    }
+    
+    private static boolean ranksAfter(double key, int position, double otherKey, int otherPosition){
+        int c = Double.compare(key, otherKey);
+        return c > 0 || (c == 0 && position > otherPosition);
+    }
+    
+    private static final class Entry<T>{
+        T item;
+        double key;
+        int position;
+        int slot;
+        
+        Entry(T item, double key, int position){
+            this.item = item;
+            this.key = key;
+            this.position = position;
+        }
+    }
+    
+}
@@ -0,0 +1,53 @@
+/**
+ * Stops the run once the best fitness has not improved for a number of 
+ * generations.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class StagnationTermination implements ITerminationCondition{
+    
+    private final int window;
+    
+    private double best = Double.NaN;
+    private int lastImprovement = 0;
+    
+    /**
+     * @param window the number of generations without an improvement 
+     * after which the run stops
+     */
+    public StagnationTermination(int window){
+        if ( window < 1 ){
+            throw new IllegalArgumentException("Window must be at least 1: " + window);
+        }
+        this.window = window;
+    }
+
+    @Override
+    public void reset() {
+        best = Double.NaN;
+        lastImprovement = 0;
+    }
+
+    @Override
+    public boolean isSatisfied(GeneticAlgorithm ga, GenerationStatistics statistics) {
+        double f = statistics.getBestFitness();
+        boolean improved = Double.isNaN(best) 
+                || (ga.getGof().calibrateToLessThan() ? f < best : f > best);
+        if ( improved && !Double.isNaN(f) ){
+            best = f;
+            lastImprovement = statistics.getGeneration();
+            return false;
+        }
+        return statistics.getGeneration() - lastImprovement >= window;
+    }
+
+    @Override
+    public String getDescription() {
+        return "No improvement in " + window + " generations";
+    }
+    
+}
@@ -0,0 +1,195 @@
+/**
+ * Steady state evolution for a GeneticAlgorithm.  After the initial 
+ * population has been evaluated the breed population becomes an elite pool.  
+ * Each worker thread repeatedly takes a pair of parents from the pool, 
+ * breeds and mutates them and calculates the fitness of the offspring, 
+ * which then replaces the worst member of the pool if it is better.  There 
+ * is no barrier between generations so a worker that finishes a quick 
+ * fitness calculation carries straight on with the next offspring.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class SteadyStateEvolution {
+    
+    private final GeneticAlgorithm ga;
+    private final boolean lessThan;
+    
+    //the elite pool, best first, guarded by itself
+    private final List<Chromosome> pool = new ArrayList<Chromosome>();
+    private final HashSet<Chromosome> members = new HashSet<Chromosome>();
+    
+    //the number of offspring still to be created
+    private final AtomicLong remaining = new AtomicLong();
+    private long total = 0;
+    private volatile boolean failed = false;
+    
+    SteadyStateEvolution(GeneticAlgorithm ga){
+        this.ga = ga;
+        this.lessThan = ga.getGof().calibrateToLessThan();
+    }
+    
+    /**
+     * Runs the steady state evolution, leaving the final elite pool in the 
+     * breed population of the GeneticAlgorithm.
+     * 
+     * @return true if the run finished, false if an error occurred and has 
+     * been reported.
+     */
+    boolean evolve(){
+        
+        //the initial population is evaluated and selected in the same 
+        //way as the generational algorithm
+        if ( !ga.createInitialPopulation() ){return false;}
+        if ( !ga.evaluateAndSelect() ){return false;}
+        ga.getCandidatePopulation().clear();
+        
+        pool.addAll(ga.getBreedPopulation());
+        members.addAll(pool);
+        total = (long)ga.getGenerations() * ga.getCandidatePopulationSize();
+        remaining.set(total);
+        
+        Executor executor = ga.getEvaluationExecutor();
+        int workers = ga.getParallelism();
+        
+        final long seed = ga.getRandom().nextLong();
+        if ( executor == null || workers == 1 ){
+            work(seed);
+        }else{
+            List<FutureTask<Object>> tasks = new ArrayList<FutureTask<Object>>();
+            for (int i = 0; i < workers; i++) {
+                FutureTask<Object> task = new FutureTask<Object>(new Runnable(){
+                    @Override
+                    public void run() {
+                        work(seed);
+                    }
+                }, null);
+                tasks.add(task);
+                executor.execute(task);
+            }
+            for (FutureTask<Object> task : tasks) {
+                try{
+                    task.get();
+                }catch(InterruptedException e){
+                    failed = true;
+                    Thread.currentThread().interrupt();
+                    ga.reportError(e);
+                    break;
+                }catch(ExecutionException e){
+                    failed = true;
+                    ga.reportError(e.getCause() instanceof Exception ? (Exception)e.getCause() : e);
+                }
+            }
+        }
+        
+        synchronized(pool){
+            ga.getBreedPopulation().clear();
+            ga.getBreedPopulation().addAll(pool);
+        }
+        return !failed && !ga.isCancelled();
+    }
+    
+    /**
+     * The loop run by each worker until all of the offspring have been 
+     * created or an error occurs.  Each offspring is created with its own 
+     * random number stream.
+     */
+    private void work(long seed){
+        long ticket;
+        while ( !failed && ga.awaitResume() && (ticket = remaining.getAndDecrement()) > 0 ){
+            Random random = new StreamRandom(seed, ticket);
+            ga.bindRandom(random);
+            try{
+                breed(random, ticket);
+            }finally{
+                ga.bindRandom(null);
+            }
+        }
+    }
+    
+    /**
+     * Breeds one offspring from two parents in the pool and inserts it.
+     */
+    private void breed(Random random, long ticket){
+        Chromosome first;
+        Chromosome second;
+        synchronized(pool){
+            int n = pool.size();
+            int i = random.nextInt(n);
+            int j = i;
+            if ( n > 1 ){
+                j = random.nextInt(n - 1);
+                if ( j >= i ){j++;}
+            }
+            first = pool.get(i);
+            second = pool.get(j);
+        }
+        
+        //the parents are never changed once in the pool so they can be 
+        //bred without holding the lock
+        try{
+            Chromosome offspring = first.breed(second);
+            if ( random.nextDouble() < ga.getMutationRate() ){
+                offspring.mutate();
+            }
+            offspring.getFitness();
+            if ( insert(offspring) ){
+                //report the generation the offspring would have been bred 
+                //in by the generational algorithm
+                int generation = 1 + (int)((total - ticket) / ga.getCandidatePopulationSize());
+                ga.offerBest(offspring, generation);
+            }
+        }catch(Exception e){
+            failed = true;
+            ga.reportError(e);
+        }
+    }
+    
+    /**
+     * Inserts the offspring into the pool in fitness order if it is not 
+     * already there and is better than the worst member.
+     * 
+     * @return true if the offspring is now the best member of the pool
+     */
+    private boolean insert(Chromosome offspring){
+        double key = rank(offspring.getFitness());
+        synchronized(pool){
+            if ( members.contains(offspring) ){return false;}
+            
+            int size = pool.size();
+            if ( size >= ga.getBreedPopulationSize() ){
+                if ( key >= rank(pool.get(size - 1).getFitness()) ){return false;}
+                members.remove(pool.remove(size - 1));
+                size--;
+            }
+            
+            //insert after any members with the same fitness
+            int position = size;
+            while ( position > 0 && key < rank(pool.get(position - 1).getFitness()) ){
+                position--;
+            }
+            pool.add(position, offspring);
+            members.add(offspring);
+            return position == 0;
+        }
+    }
+    
+    //smaller ranks are better, NaN is always worst
+    private double rank(double fitness){
+        if ( Double.isNaN(fitness) ){return Double.POSITIVE_INFINITY;}
+        return lessThan ? fitness : -fitness;
+    }
+    
+}
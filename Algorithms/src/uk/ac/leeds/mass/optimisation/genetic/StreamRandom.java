@@ -0,0 +1,95 @@
+/**
+ * Random number generator for a single offspring.  Each stream is seeded 
+ * from the seed of its generation and its position in the generation using 
+ * the SplitMix64 algorithm, so the numbers an offspring sees do not depend 
+ * on which thread breeds it or in what order.  A stream is only ever used by 
+ * one thread so, unlike java.util.Random, it does no synchronisation: the 
+ * spare gaussian is kept here rather than in Random, whose methods for it 
+ * are synchronized.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.Random;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class StreamRandom extends Random{
+    
+    private static final long serialVersionUID = 1L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    
+    private long state;
+    private double nextNextGaussian;
+    private boolean haveNextNextGaussian = false;
+    
+    /**
+     * @param seed the seed of the generation
+     * @param index the position of the offspring in the generation
+     */
+    StreamRandom(long seed, long index){
+        super(0L);
+        reseed(seed, index);
+    }
+    
+    /**
+     * Starts the stream of another offspring, so that one StreamRandom can 
+     * be reused by a thread for every offspring it creates.
+     * 
+     * @param seed the seed of the generation
+     * @param index the position of the offspring in the generation
+     */
+    void reseed(long seed, long index){
+        haveNextNextGaussian = false;
+        //mix the index in so neighbouring offspring get unrelated streams
+        this.state = mix(seed + mix(index * GOLDEN_GAMMA + GOLDEN_GAMMA));
+    }
+    
+    @Override
+    protected int next(int bits) {
+        return (int)(nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+    
+    /**
+     * The same polar method as Random.nextGaussian, so the numbers are 
+     * unchanged, but without the lock.
+     */
+    @Override
+    public double nextGaussian() {
+        if ( haveNextNextGaussian ){
+            haveNextNextGaussian = false;
+            return nextNextGaussian;
+        }
+        double v1, v2, s;
+        do{
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        }while ( s >= 1 || s == 0 );
+        double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+        nextNextGaussian = v2 * multiplier;
+        haveNextNextGaussian = true;
+        return v1 * multiplier;
+    }
+    
+    @Override
+    public void setSeed(long seed) {
+        //called by the Random constructor, the state is set afterwards
+        this.state = seed;
+        haveNextNextGaussian = false;
+    }
+    
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+    
+}
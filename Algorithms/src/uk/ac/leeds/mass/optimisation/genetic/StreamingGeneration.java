@@ -0,0 +1,281 @@
+/**
+ * Runs a generation of a GeneticAlgorithm as a pipeline, so the candidate 
+ * population is never held in memory.  The calling thread breeds the 
+ * offspring one at a time and puts them on a bounded queue, the worker 
+ * threads take them off, calculate their fitness and offer them to a 
+ * StreamingSelector which keeps only the best.  Evaluation starts as soon 
+ * as the first offspring is bred, and once the queue is full the calling 
+ * thread evaluates the offspring at the head of the queue itself until 
+ * there is room, so at most the breed population, the new selection and 
+ * the offspring in the queue or being evaluated are held.  The calling 
+ * thread also evaluates whatever is left in the queue once breeding has 
+ * finished, so the generation never depends on the executor supplying 
+ * threads: one that runs tasks on the calling thread, or a shared pool 
+ * that is busy, only means fewer workers.
+ * 
+ * Each offspring is created with the random number stream for its position 
+ * and the selection breaks ties by position, so the new breed population 
+ * is exactly the same as when the whole candidate population is bred, 
+ * evaluated and then selected.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class StreamingGeneration {
+    
+    //put on the queue once for each worker when there are no more offspring
+    private static final Offspring END = new Offspring(null, -1);
+    
+    private final GeneticAlgorithm ga;
+    private final int queueSize;
+    private final StreamRandom stream = new StreamRandom(0L, 0L);
+    private volatile boolean failed = false;
+    private long breedingTime = 0;
+    
+    /**
+     * @param ga the GeneticAlgorithm to run the generation for
+     * @param queueSize the number of offspring that can wait for evaluation
+     */
+    StreamingGeneration(GeneticAlgorithm ga, int queueSize){
+        this.ga = ga;
+        this.queueSize = queueSize;
+    }
+    
+    /**
+     * Creates the candidates of a generation and offers them to the 
+     * selector along with the members of the current breed population, 
+     * which are offered after the candidates and any migrants as they would 
+     * be added to the end of the candidate population.
+     * 
+     * @param seed the seed of the random number streams of the generation
+     * @param initial true to create the initial population, false to breed 
+     * the offspring from the breed population
+     * @param migrants the number of migrants the caller offers after the 
+     * candidates
+     * @param selector the selector to offer the evaluated candidates to
+     * @return true if every candidate was offered, false if an error 
+     * occurred and has been reported or the run was cancelled
+     */
+    boolean run(long seed, boolean initial, int migrants, StreamingSelector selector){
+        failed = false;
+        breedingTime = 0;
+        int count = ga.getCandidatePopulationSize();
+        List<Chromosome> breedPopulation = ga.getBreedPopulation();
+        for (int i = 0; i < breedPopulation.size(); i++) {
+            selector.offer(breedPopulation.get(i), count + migrants + i, false);
+        }
+        
+        Executor executor = ga.getEvaluationExecutor();
+        int workers = ga.getParallelism();
+        if ( executor == null || workers == 1 ){
+            for (int i = 0; i < count; i++) {
+                if ( ga.isCancelled() ){return false;}
+                Chromosome c = create(seed, i, initial);
+                if ( c == null ){return false;}
+                try{
+                    c.getFitness();
+                }catch(Exception e){
+                    ga.reportError(e);
+                    return false;
+                }
+                selector.offer(c, i);
+            }
+            return true;
+        }
+        
+        BlockingQueue<Offspring> queue = new ArrayBlockingQueue<Offspring>(queueSize);
+        Thread caller = Thread.currentThread();
+        List<Worker> submitted = new ArrayList<Worker>();
+        List<FutureTask<Object>> tasks = new ArrayList<FutureTask<Object>>();
+        for (int i = 0; i < workers; i++) {
+            Worker worker = new Worker(queue, selector, caller);
+            FutureTask<Object> task = new FutureTask<Object>(worker, null);
+            try{
+                executor.execute(task);
+            }catch(RejectedExecutionException e){
+                //the calling thread does the work of any worker not taken
+                break;
+            }
+            submitted.add(worker);
+            tasks.add(task);
+        }
+        
+        boolean interrupted = false;
+        try{
+            for (int i = 0; i < count && !failed && !ga.isCancelled(); i++) {
+                Chromosome c = create(seed, i, initial);
+                if ( c == null ){
+                    failed = true;
+                    break;
+                }
+                Offspring o = new Offspring(c, i);
+                //evaluate here while the workers are behind rather than wait 
+                //for them, as they may never start
+                while ( !queue.offer(o) ){
+                    Offspring waiting = queue.poll();
+                    if ( waiting != null ){
+                        evaluate(waiting, selector);
+                    }
+                }
+            }
+            Offspring waiting;
+            while ( (waiting = queue.poll()) != null ){
+                evaluate(waiting, selector);
+            }
+        }finally{
+            //workers that have not started are stopped from starting, the 
+            //rest keep taking from the queue until they reach the end so 
+            //this cannot block for long
+            List<FutureTask<Object>> started = new ArrayList<FutureTask<Object>>();
+            for (int i = 0; i < submitted.size(); i++) {
+                if ( !submitted.get(i).started.compareAndSet(false, true) ){
+                    started.add(tasks.get(i));
+                }
+            }
+            tasks = started;
+            for (int i = 0; i < tasks.size(); i++) {
+                boolean put = false;
+                while ( !put ){
+                    try{
+                        queue.put(END);
+                        put = true;
+                    }catch(InterruptedException e){
+                        interrupted = true;
+                    }
+                }
+            }
+        }
+        
+        for (FutureTask<Object> task : tasks) {
+            try{
+                task.get();
+            }catch(InterruptedException e){
+                failed = true;
+                interrupted = true;
+                ga.reportError(e);
+                break;
+            }catch(ExecutionException e){
+                failed = true;
+                ga.reportError(e.getCause() instanceof Exception ? (Exception)e.getCause() : e);
+            }
+        }
+        if ( interrupted ){
+            Thread.currentThread().interrupt();
+        }
+        return !failed && !ga.isCancelled();
+    }
+    
+    /**
+     * Evaluates an offspring and offers it to the selector, only discarding 
+     * it once an error has occurred or the run has been cancelled.
+     */
+    private void evaluate(Offspring o, StreamingSelector selector){
+        if ( failed || ga.isCancelled() ){return;}
+        try{
+            o.chromosome.getFitness();
+            selector.offer(o.chromosome, o.index);
+        }catch(Exception e){
+            failed = true;
+            ga.reportError(e);
+        }
+    }
+    
+    /**
+     * Creates the candidate at a position with its own random number stream.
+     * 
+     * @return the candidate, or null if an error occurred and has been 
+     * reported
+     */
+    private Chromosome create(long seed, int index, boolean initial){
+        long start = System.nanoTime();
+        stream.reseed(seed, index);
+        ga.bindRandom(stream);
+        try{
+            if ( initial ){
+                return ga.getChromosome().createNewChromosome(ga);
+            }
+            return ga.createOffspring(index, stream);
+        }catch(Exception e){
+            ga.reportError(e);
+            return null;
+        }finally{
+            ga.bindRandom(null);
+            breedingTime += System.nanoTime() - start;
+        }
+    }
+    
+    /**
+     * @return the time spent creating candidates on the calling thread in 
+     * the last generation, in nanoseconds
+     */
+    long getBreedingTime(){
+        return breedingTime;
+    }
+    
+    /**
+     * Takes offspring off the queue and evaluates them until it reaches 
+     * the end.
+     */
+    private final class Worker implements Runnable{
+        
+        private final BlockingQueue<Offspring> queue;
+        private final StreamingSelector selector;
+        private final Thread caller;
+        //set by whichever of the worker and the calling thread gets there 
+        //first, the worker only runs if it does
+        final AtomicBoolean started = new AtomicBoolean(false);
+        
+        Worker(BlockingQueue<Offspring> queue, StreamingSelector selector, Thread caller){
+            this.queue = queue;
+            this.selector = selector;
+            this.caller = caller;
+        }
+
+        @Override
+        public void run() {
+            //run by the executor on the calling thread, which would wait 
+            //here for offspring it has not bred yet, or too late to help
+            if ( Thread.currentThread() == caller || !started.compareAndSet(false, true) ){return;}
+            boolean interrupted = false;
+            while ( true ){
+                Offspring o;
+                try{
+                    o = queue.take();
+                }catch(InterruptedException e){
+                    //the end marker is still on its way, keep going
+                    interrupted = true;
+                    continue;
+                }
+                if ( o == END ){break;}
+                evaluate(o, selector);
+            }
+            if ( interrupted ){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    private static final class Offspring{
+        final Chromosome chromosome;
+        final int index;
+        
+        Offspring(Chromosome chromosome, int index){
+            this.chromosome = chromosome;
+            this.index = index;
+        }
+    }
+    
+}
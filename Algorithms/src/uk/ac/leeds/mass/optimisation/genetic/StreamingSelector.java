@@ -0,0 +1,109 @@
+/**
+ * Selects the best distinct Chromosome objects from a stream of evaluated 
+ * candidates without holding the whole candidate population.  The current 
+ * selection is kept in a SelectionHeap, so a candidate is either dropped 
+ * straight away or replaces the worst member at a cost of O(log k).
+ * 
+ * Each candidate comes with its position in the candidate population and 
+ * ties in fitness are broken by the position, so the selection is the same 
+ * as that of the EliteSelector whatever order the candidates arrive in.  
+ * A fitness of NaN is always ranked last.
+ * 
+ * The mean and worst fitness of the candidates, but not the previous breed 
+ * population, are worked out as they pass for the generation statistics.  
+ * The candidates may be offered from several threads at once.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.List;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class StreamingSelector {
+    
+    private final boolean ascending;
+    private final SelectionHeap<Chromosome> heap;
+    
+    //statistics of every candidate offered
+    private int offered = 0;
+    private int counted = 0;
+    private double total = 0.0;
+    private double worst = Double.NaN;
+    
+    /**
+     * @param capacity the maximum number of Chromosome objects to select
+     * @param ascending true if smaller fitness values are better
+     */
+    StreamingSelector(int capacity, boolean ascending){
+        this.ascending = ascending;
+        this.heap = new SelectionHeap<Chromosome>(capacity);
+    }
+    
+    /**
+     * Offers an evaluated candidate for selection.
+     * 
+     * @param c the evaluated Chromosome
+     * @param position its position in the candidate population
+     */
+    void offer(Chromosome c, int position){
+        offer(c, position, true);
+    }
+    
+    /**
+     * Offers an evaluated Chromosome for selection.
+     * 
+     * @param c the evaluated Chromosome
+     * @param position its position in the candidate population
+     * @param candidate false for a member of the previous breed population, 
+     * which is not counted in the statistics
+     */
+    synchronized void offer(Chromosome c, int position, boolean candidate){
+        double f = c.getFitness();
+        if ( candidate ){
+            offered++;
+        }
+        if ( candidate && !Double.isNaN(f) ){
+            total += f;
+            counted++;
+            if ( Double.isNaN(worst) || (ascending ? f > worst : f < worst) ){
+                worst = f;
+            }
+        }
+        heap.offer(c, SelectionHeap.key(f, ascending), position);
+    }
+    
+    /**
+     * Adds the selection to the list, best first, and empties this 
+     * selector.
+     * 
+     * @param elite the list to add the selected Chromosome objects to
+     */
+    synchronized void drainTo(List<Chromosome> elite){
+        elite.addAll(heap.drain());
+    }
+    
+    /**
+     * @return the number of candidates offered, not counting the previous 
+     * breed population
+     */
+    synchronized int getOffered(){
+        return offered;
+    }
+    
+    /**
+     * @return the mean fitness of the candidates offered, ignoring NaN
+     */
+    synchronized double getMean(){
+        return counted == 0 ? Double.NaN : total / counted;
+    }
+    
+    /**
+     * @return the worst fitness of the candidates offered, ignoring NaN
+     */
+    synchronized double getWorst(){
+        return worst;
+    }
+    
+}
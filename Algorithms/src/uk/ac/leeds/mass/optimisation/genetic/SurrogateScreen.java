@@ -0,0 +1,184 @@
+/**
+ * Screens the offspring of each generation with an ISurrogate, so that only 
+ * those predicted to do best are evaluated with Chromosome.calculateFitness.  
+ * Every evaluated offspring is then added to the surrogate, and its 
+ * prediction is compared with the calculated fitness to track how accurate 
+ * the surrogate is.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ *
+ * @author kirkharland
+ */
+final class SurrogateScreen {
+    
+    private final ISurrogate surrogate;
+    private final double fraction;
+    private final int warmUp;
+    
+    //the offspring of the current generation and their genome vectors, 
+    //with the predictions if they were screened
+    private final List<Chromosome> offspring = new ArrayList<Chromosome>();
+    private final List<double[]> vectors = new ArrayList<double[]>();
+    private double[] predictions = null;
+    
+    //the number of samples given to the surrogate
+    private long learned = 0;
+    private volatile long screened = 0;
+    private volatile long predicted = 0;
+    private volatile double absoluteError = 0.0;
+    
+    /**
+     * @param surrogate the surrogate to predict the fitness with, which 
+     * should be empty
+     * @param fraction the fraction of the offspring to evaluate
+     * @param warmUp the number of samples the surrogate must be given 
+     * before any offspring are screened
+     */
+    SurrogateScreen(ISurrogate surrogate, double fraction, int warmUp){
+        this.surrogate = surrogate;
+        this.fraction = fraction;
+        this.warmUp = warmUp;
+    }
+    
+    /**
+     * Removes from the candidates the offspring the surrogate predicts will 
+     * do worst, leaving the fraction to be evaluated.  Nothing is removed 
+     * until the surrogate has been given enough samples, which are counted 
+     * here as a surrogate may only hold a limited number of them, or if any 
+     * offspring has no genome vector.
+     * 
+     * @param ga the GeneticAlgorithm, used to make the predictions in 
+     * parallel if it has an executor
+     * @param candidates the candidate population
+     * @param ascending true if smaller fitness values are better
+     * @return true if the candidates were screened, false if an error 
+     * occurred and has been reported.
+     */
+    boolean screen(GeneticAlgorithm ga, List<Chromosome> candidates, boolean ascending){
+        offspring.clear();
+        vectors.clear();
+        predictions = null;
+        
+        for (Chromosome c : candidates) {
+            if ( c.isEvaluated() ){continue;}
+            double[] vector = c.getGenomeVector();
+            if ( vector == null ){
+                //nothing can be learnt from this population
+                offspring.clear();
+                vectors.clear();
+                return true;
+            }
+            offspring.add(c);
+            vectors.add(vector);
+        }
+        
+        final int n = offspring.size();
+        int keep = (int)Math.ceil(n * fraction);
+        if ( learned < warmUp || keep >= n ){return true;}
+        
+        final double[] p = new double[n];
+        boolean ok = ga.forEachIndex(n, Math.max(1, n / (ga.getParallelism() * 4)), new GeneticAlgorithm.IndexedTask(){
+            @Override
+            public void run(int index) {
+                p[index] = surrogate.predict(vectors.get(index));
+            }
+        });
+        if ( !ok ){return false;}
+        
+        //rank the offspring best first, NaN last and ties by position
+        final double[] keys = new double[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = Double.isNaN(p[i]) ? Double.POSITIVE_INFINITY : (ascending ? p[i] : -p[i]) + 0.0;
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>(){
+            @Override
+            public int compare(Integer a, Integer b) {
+                int c = Double.compare(keys[a], keys[b]);
+                return c != 0 ? c : a.compareTo(b);
+            }
+        });
+        
+        //drop the rest, keeping the candidate population in order
+        boolean[] kept = new boolean[n];
+        for (int i = 0; i < keep; i++) {
+            kept[order[i]] = true;
+        }
+        List<Chromosome> keptOffspring = new ArrayList<Chromosome>(keep);
+        List<double[]> keptVectors = new ArrayList<double[]>(keep);
+        predictions = new double[keep];
+        for (int i = 0; i < n; i++) {
+            if ( kept[i] ){
+                predictions[keptOffspring.size()] = p[i];
+                keptOffspring.add(offspring.get(i));
+                keptVectors.add(vectors.get(i));
+            }
+        }
+        Set<Chromosome> dropped = Collections.newSetFromMap(new IdentityHashMap<Chromosome, Boolean>());
+        for (int i = 0; i < n; i++) {
+            if ( !kept[i] ){dropped.add(offspring.get(i));}
+        }
+        List<Chromosome> remaining = new ArrayList<Chromosome>(candidates.size() - dropped.size());
+        for (Chromosome c : candidates) {
+            if ( !dropped.contains(c) ){remaining.add(c);}
+        }
+        candidates.clear();
+        candidates.addAll(remaining);
+        
+        offspring.clear();
+        offspring.addAll(keptOffspring);
+        vectors.clear();
+        vectors.addAll(keptVectors);
+        screened += n - keep;
+        return true;
+    }
+    
+    /**
+     * Adds the offspring evaluated since screen was called to the surrogate, 
+     * recording the error of any predictions made for them.
+     */
+    void learn(){
+        for (int i = 0; i < offspring.size(); i++) {
+            double f = offspring.get(i).getFitness();
+            if ( Double.isNaN(f) ){continue;}
+            if ( predictions != null && !Double.isNaN(predictions[i]) ){
+                absoluteError += Math.abs(predictions[i] - f);
+                predicted++;
+            }
+            surrogate.add(vectors.get(i), f);
+            learned++;
+        }
+        offspring.clear();
+        vectors.clear();
+        predictions = null;
+    }
+    
+    /**
+     * @return the number of offspring dropped without being evaluated
+     */
+    long getScreenedCount(){
+        return screened;
+    }
+    
+    /**
+     * @return the mean absolute difference between the predicted and the 
+     * calculated fitness of the offspring that were evaluated, NaN if no 
+     * predictions have been checked
+     */
+    double getMeanAbsoluteError(){
+        long count = predicted;
+        return count == 0 ? Double.NaN : absoluteError / count;
+    }
+    
+}
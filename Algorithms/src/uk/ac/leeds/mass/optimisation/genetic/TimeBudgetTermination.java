@@ -0,0 +1,39 @@
+/**
+ * Stops the run once it has been running for longer than a set time.  The 
+ * time is checked at the end of each generation so the run can go over the 
+ * budget by up to one generation.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class TimeBudgetTermination implements ITerminationCondition{
+    
+    private final long budget;
+    
+    /**
+     * @param budget the length of time the run is allowed
+     * @param unit the unit of the budget
+     */
+    public TimeBudgetTermination(long budget, TimeUnit unit){
+        this.budget = unit.toNanos(budget);
+    }
+
+    @Override
+    public void reset() {}
+
+    @Override
+    public boolean isSatisfied(GeneticAlgorithm ga, GenerationStatistics statistics) {
+        return statistics.getElapsedTime() >= budget;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Time budget of " + TimeUnit.NANOSECONDS.toMillis(budget) + "ms used";
+    }
+    
+}
@@ -0,0 +1,60 @@
+/**
+ * Stops the run once the best fitness has improved by less than a relative 
+ * tolerance over a number of generations.  Unlike StagnationTermination 
+ * this also stops runs that are still improving, but only by tiny amounts.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class ToleranceTermination implements ITerminationCondition{
+    
+    private final double tolerance;
+    private final int window;
+    
+    //the best fitness of the last window generations, used as a ring
+    private final double[] history;
+    private int count = 0;
+    
+    /**
+     * @param tolerance the relative improvement, such as 1e-6, below which 
+     * the run stops
+     * @param window the number of generations the improvement is measured over
+     */
+    public ToleranceTermination(double tolerance, int window){
+        if ( tolerance < 0 ){
+            throw new IllegalArgumentException("Tolerance cannot be negative: " + tolerance);
+        }
+        if ( window < 1 ){
+            throw new IllegalArgumentException("Window must be at least 1: " + window);
+        }
+        this.tolerance = tolerance;
+        this.window = window;
+        this.history = new double[window + 1];
+    }
+
+    @Override
+    public void reset() {
+        count = 0;
+    }
+
+    @Override
+    public boolean isSatisfied(GeneticAlgorithm ga, GenerationStatistics statistics) {
+        double current = statistics.getBestFitness();
+        history[count % history.length] = current;
+        count++;
+        if ( count <= window ){return false;}
+        
+        double previous = history[count % history.length];
+        double scale = Math.max(Math.abs(previous), Double.MIN_NORMAL);
+        return Math.abs(current - previous) / scale < tolerance;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Relative improvement below " + tolerance + " over " + window + " generations";
+    }
+    
+}
@@ -0,0 +1,64 @@
+/**
+ * Tournament selection, a number of members of the breed population are 
+ * picked at random and the best of them is the parent.  Larger tournaments 
+ * favour the best members more strongly.  As the breed population is held 
+ * best first the winner is the one with the lowest index, so each 
+ * selection costs one random number for each entrant and nothing needs to 
+ * be prepared.
+ */
+package uk.ac.leeds.mass.optimisation.genetic;
+
+import java.util.Random;
+
+/**
+ *
+ * @author kirkharland
+ */
+public class TournamentSelection implements ISelectionStrategy {
+    
+    private final int size;
+    private volatile int population = 0;
+    
+    /**
+     * Creates a binary tournament.
+     */
+    public TournamentSelection(){
+        this(2);
+    }
+    
+    /**
+     * @param size the number of entrants in each tournament, at least 1
+     */
+    public TournamentSelection(int size){
+        if ( size < 1 ){
+            throw new IllegalArgumentException("Tournament size must be at least 1: " + size);
+        }
+        this.size = size;
+    }
+    
+    @Override
+    public void prepare(double[] fitness, boolean ascending) {
+        population = fitness.length;
+    }
+
+    @Override
+    public int select(Random random) {
+        int n = population;
+        int best = random.nextInt(n);
+        for (int i = 1; i < size; i++) {
+            int entrant = random.nextInt(n);
+            if ( entrant < best ){
+                best = entrant;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * @return the number of entrants in each tournament
+     */
+    public int getSize() {
+        return size;
+    }
+    
+}